@@ -1,5 +1,6 @@
 package maks.com.groupDungeonPlugin;
 
+import maks.com.groupDungeonPlugin.api.DungeonConfigWatcher;
 import maks.com.groupDungeonPlugin.api.DungeonManager;
 import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.api.PartyIntegrationAPI;
@@ -10,14 +11,19 @@ import maks.com.groupDungeonPlugin.commands.PreviewEditCommand;
 import maks.com.groupDungeonPlugin.commands.PartyDungeonCommand;
 import maks.com.groupDungeonPlugin.listeners.GUIListener;
 import maks.com.groupDungeonPlugin.listeners.DungeonMobListener;
+import maks.com.groupDungeonPlugin.listeners.PlayerSessionListener;
 import maks.com.groupDungeonPlugin.listeners.PortalListener;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.IOException;
+
 public final class GroupDungeonPlugin extends JavaPlugin {
     private DungeonManager dungeonManager;
     private GUIManager guiManager;
     private PartyManager partyManager;
     private DatabaseManager databaseManager;
+    private DungeonConfigWatcher configWatcher;
 
     /**
      * Gets the dungeon manager.
@@ -62,9 +68,10 @@ public final class GroupDungeonPlugin extends JavaPlugin {
 
         // Set debugging flag in config if not present
         if (!getConfig().contains("debug")) {
-            getConfig().set("debug", 1);
+            getConfig().set("debug", false);
             saveConfig();
         }
+        DebugLogger.init(this);
 
         // Initialize managers
         this.databaseManager = new DatabaseManager(this);
@@ -76,32 +83,52 @@ public final class GroupDungeonPlugin extends JavaPlugin {
         PartyIntegrationAPI.initialize();
 
         this.partyManager = new PartyManager(this);
-        this.dungeonManager = new DungeonManager(this, databaseManager);
+        this.dungeonManager = new DungeonManager(this, databaseManager, partyManager);
         this.guiManager = new GUIManager(this, dungeonManager);
 
+        // Reload dungeons.yml when it is edited
+        if (getConfig().getBoolean("settings.watch_dungeons_file", true)) {
+            try {
+                this.configWatcher = new DungeonConfigWatcher(this, dungeonManager);
+            } catch (IOException e) {
+                getLogger().warning("Could not watch dungeons.yml for changes: " + e.getMessage());
+            }
+        }
+
         // Register commands
-        getCommand("party_dungeon").setExecutor(new PartyDungeonCommand(dungeonManager));
+        getCommand("party_dungeon").setExecutor(new PartyDungeonCommand(dungeonManager, guiManager));
         getCommand("dungeon").setExecutor(new DungeonCommand(dungeonManager, guiManager));
         getCommand("edit_preview").setExecutor(new PreviewEditCommand(dungeonManager, guiManager));
 
         // Register listeners
         getServer().getPluginManager().registerEvents(new GUIListener(), this);
         getServer().getPluginManager().registerEvents(new PortalListener(this, dungeonManager), this);
-        getServer().getPluginManager().registerEvents(new DungeonMobListener(dungeonManager), this);
+        getServer().getPluginManager().registerEvents(new DungeonMobListener(this, dungeonManager), this);
+        getServer().getPluginManager().registerEvents(new PlayerSessionListener(dungeonManager), this);
+
+        dungeonManager.getMatchmaking().start();
 
         getLogger().info("GroupDungeonPlugin has been enabled!");
-        getLogger().info("Debug mode: " + (getConfig().getInt("debug") == 1 ? "ON" : "OFF"));
+        getLogger().info("Debug mode: " + (DebugLogger.isEnabled(DebugLogger.Subsystem.DUNGEON) ? "ON" : "OFF"));
         getLogger().info("Loaded " + dungeonManager.getCategories().size() + " categories and " + 
                         dungeonManager.getDungeons().size() + " dungeons");
     }
 
     @Override
     public void onDisable() {
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (dungeonManager != null) {
+            dungeonManager.shutdown();
+        }
+
         // Close database connection
         if (databaseManager != null) {
             databaseManager.close();
         }
 
+        DebugLogger.shutdown();
         getLogger().info("GroupDungeonPlugin has been disabled!");
     }
 }
@@ -0,0 +1,177 @@
+package maks.com.groupDungeonPlugin.api;
+
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.DungeonArea;
+import maks.com.groupDungeonPlugin.models.DungeonCatalog;
+import maks.com.groupDungeonPlugin.models.DungeonCategory;
+import maks.com.groupDungeonPlugin.models.QuestStage;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses and validates dungeons.yml into a {@link DungeonCatalog}.
+ * Does not touch server state, so it can run off the main thread.
+ */
+public final class DungeonCatalogLoader {
+
+    private DungeonCatalogLoader() {
+    }
+
+    /**
+     * Loads a catalog from a file.
+     *
+     * @param file The dungeons.yml file
+     * @param version The version of the new catalog
+     * @param problems Receives a description of every problem found; the catalog is
+     *                 still built from the valid parts
+     * @return The catalog, or null if the file could not be read or parsed
+     */
+    public static DungeonCatalog load(File file, long version, List<String> problems) {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            problems.add("Could not read " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+
+        LinkedHashMap<String, DungeonCategory> categories = new LinkedHashMap<>();
+        ConfigurationSection categoriesSection = config.getConfigurationSection("categories");
+        if (categoriesSection == null) {
+            problems.add("No 'categories' section found");
+            return new DungeonCatalog(categories, version);
+        }
+
+        Set<String> dungeonIds = new HashSet<>();
+        for (String categoryId : categoriesSection.getKeys(false)) {
+            ConfigurationSection catSec = categoriesSection.getConfigurationSection(categoryId);
+            if (catSec == null) {
+                problems.add("Category " + categoryId + " is not a section");
+                continue;
+            }
+            String name = catSec.getString("name", categoryId);
+            String description = catSec.getString("description", "");
+            Material icon = parseMaterial(catSec.getString("icon", "STONE"), "category " + categoryId, problems);
+            DungeonCategory category = new DungeonCategory(categoryId, name, description, icon);
+            categories.put(categoryId, category);
+
+            ConfigurationSection dungeonsSection = catSec.getConfigurationSection("dungeons");
+            if (dungeonsSection == null) continue;
+
+            for (String dungeonId : dungeonsSection.getKeys(false)) {
+                ConfigurationSection dSec = dungeonsSection.getConfigurationSection(dungeonId);
+                String fullId = categoryId + "_" + dungeonId;
+                if (dSec == null) {
+                    problems.add("Dungeon " + fullId + " is not a section");
+                    continue;
+                }
+                if (!dungeonIds.add(fullId)) {
+                    problems.add("Duplicate dungeon ID " + fullId);
+                    continue;
+                }
+
+                String dName = dSec.getString("name", dungeonId);
+                String dDesc = dSec.getString("description", "");
+                int tier = dSec.getInt("tier");
+                int requiredLevel = dSec.getInt("requiredLevel");
+                int minParty = dSec.getInt("minPartySize");
+                int maxParty = dSec.getInt("maxPartySize");
+                if (minParty < 1 || maxParty < minParty) {
+                    problems.add("Dungeon " + fullId + " has an invalid party size " + minParty + "-" + maxParty);
+                }
+                Material dIcon = parseMaterial(dSec.getString("icon", "STONE"), "dungeon " + fullId, problems);
+
+                Dungeon dungeon = new Dungeon(fullId, dName, dDesc, tier, requiredLevel,
+                        minParty, maxParty, dIcon, categoryId);
+                if (dSec.contains("keyId") && dSec.contains("keyDisplayName")) {
+                    dungeon.setKeyId(dSec.getString("keyId"));
+                    dungeon.setKeyDisplayName(dSec.getString("keyDisplayName"));
+                }
+                if (dSec.contains("entryWarp")) {
+                    dungeon.setEntryWarp(dSec.getString("entryWarp"));
+                }
+                if (dSec.contains("instances")) {
+                    int instances = dSec.getInt("instances");
+                    if (instances < 1) {
+                        problems.add("Dungeon " + fullId + " needs at least 1 instance, got " + instances);
+                    } else {
+                        dungeon.setInstances(instances);
+                    }
+                }
+                if (dSec.contains("world")) {
+                    dungeon.setArea(parseArea(dSec, fullId, problems));
+                } else if (dSec.contains("region")) {
+                    problems.add("Dungeon " + fullId + " has a region but no world");
+                }
+                if (dSec.isConfigurationSection("stages")) {
+                    ConfigurationSection stagesSec = dSec.getConfigurationSection("stages");
+                    for (String stageKey : stagesSec.getKeys(false)) {
+                        ConfigurationSection s = stagesSec.getConfigurationSection(stageKey);
+                        if (s == null) {
+                            problems.add("Stage " + stageKey + " of dungeon " + fullId + " is not a section");
+                            continue;
+                        }
+                        int number;
+                        if (s.isInt("number")) {
+                            number = s.getInt("number");
+                        } else {
+                            try {
+                                number = Integer.parseInt(stageKey);
+                            } catch (NumberFormatException e) {
+                                problems.add("Stage " + stageKey + " of dungeon " + fullId + " has no number");
+                                continue;
+                            }
+                        }
+                        String sDesc = s.getString("description", "");
+                        String warp = s.getString("warp", "");
+                        String mob = s.getString("triggerMob");
+                        int timeLimit = s.getInt("time_limit", 0);
+                        if (timeLimit < 0) {
+                            problems.add("Stage " + stageKey + " of dungeon " + fullId + " has a negative time_limit");
+                            timeLimit = 0;
+                        }
+                        dungeon.addQuestStage(new QuestStage(number, sDesc, warp, mob, timeLimit));
+                    }
+                }
+                category.addDungeon(dungeon);
+            }
+        }
+
+        return new DungeonCatalog(categories, version);
+    }
+
+    private static DungeonArea parseArea(ConfigurationSection dSec, String fullId, List<String> problems) {
+        String world = dSec.getString("world");
+        ConfigurationSection region = dSec.getConfigurationSection("region");
+        if (region == null) {
+            return DungeonArea.of(world);
+        }
+        List<Integer> min = region.getIntegerList("min");
+        List<Integer> max = region.getIntegerList("max");
+        if (min.size() != 3 || max.size() != 3) {
+            problems.add("Region of dungeon " + fullId + " needs min and max as [x, y, z]");
+            return DungeonArea.of(world);
+        }
+        return DungeonArea.of(world,
+                new int[]{min.get(0), min.get(1), min.get(2)},
+                new int[]{max.get(0), max.get(1), max.get(2)});
+    }
+
+    private static Material parseMaterial(String name, String owner, List<String> problems) {
+        Material material = Material.matchMaterial(name);
+        if (material == null) {
+            problems.add("Unknown icon material '" + name + "' for " + owner + ", using STONE");
+            return Material.STONE;
+        }
+        return material;
+    }
+}
@@ -0,0 +1,106 @@
+package maks.com.groupDungeonPlugin.api;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches dungeons.yml and reloads the dungeon catalog when it changes.
+ *
+ * Editors often write a file in several steps, so a reload only starts once the
+ * file has been quiet for {@link #DEBOUNCE_MILLIS}.
+ */
+public class DungeonConfigWatcher implements Runnable {
+    private static final String FILE_NAME = "dungeons.yml";
+    private static final long DEBOUNCE_MILLIS = 1000L;
+
+    private final JavaPlugin plugin;
+    private final DungeonManager dungeonManager;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching the plugin data folder.
+     *
+     * @param plugin The plugin instance
+     * @param dungeonManager The dungeon manager to reload
+     * @throws IOException If the data folder cannot be watched
+     */
+    public DungeonConfigWatcher(JavaPlugin plugin, DungeonManager dungeonManager) throws IOException {
+        this.plugin = plugin;
+        this.dungeonManager = dungeonManager;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        plugin.getDataFolder().toPath().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this, "GroupDungeon-ConfigWatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+
+                // Wait until the file stops changing
+                while (true) {
+                    WatchKey next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    changed |= drain(next);
+                }
+
+                if (changed) {
+                    Bukkit.getScheduler().runTask(plugin, this::reload);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Plugin is disabling
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path && ((Path) context).getFileName().toString().equals(FILE_NAME)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        if (!plugin.isEnabled()) return;
+        dungeonManager.reloadCatalog().thenAccept(problems -> {
+            if (problems.isEmpty()) return;
+            plugin.getLogger().warning(FILE_NAME + " changed but was not reloaded:");
+            for (String problem : problems) {
+                plugin.getLogger().warning(" - " + problem);
+            }
+        });
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not close the dungeons.yml watcher: " + e.getMessage());
+        }
+    }
+}
@@ -1,127 +1,190 @@
 package maks.com.groupDungeonPlugin.api;
 
 import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.DungeonCatalog;
 import maks.com.groupDungeonPlugin.models.DungeonCategory;
+import maks.com.groupDungeonPlugin.models.DungeonRun;
 import maks.com.groupDungeonPlugin.models.QuestStage;
 import maks.com.groupDungeonPlugin.database.DatabaseManager;
-import maks.com.groupDungeonPlugin.api.PartyManager;
-import maks.com.groupDungeonPlugin.api.MyExperienceAPI;
+import maks.com.groupDungeonPlugin.database.StoredPreview;
+import maks.com.groupDungeonPlugin.database.StoredRun;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
+import maks.com.groupDungeonPlugin.utils.ItemSerializationUtils;
+import maks.com.groupDungeonPlugin.utils.TimerWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages dungeons and categories.
+ *
+ * Categories and dungeons live in an immutable {@link DungeonCatalog} that is
+ * replaced as a whole when dungeons.yml is reloaded. Running dungeons keep the
+ * Dungeon they were started with until they end.
  */
 public class DungeonManager {
-    private final Map<String, DungeonCategory> categories;
-    private final Map<String, Dungeon> dungeons;
     private final JavaPlugin plugin;
+    private final File catalogFile;
+    private final AtomicLong catalogVersions;
+    private volatile DungeonCatalog catalog;
     private final DatabaseManager databaseManager;
-    private final Map<UUID, Integer> playerStages;
-    private final Map<UUID, String> activeDungeons;
-    private final Map<UUID, UUID> memberLeaders;
-    private final Map<UUID, BukkitTask> dungeonTimers;
+    private final PartyManager partyManager;
+    // Running dungeons, each pinned to the catalog version it was started from
+    private final DungeonRunRegistry runs;
+    private final InstanceScheduler scheduler;
+    private final MatchmakingService matchmaking;
 
-    private static final int debuggingFlag = 1;
+    // Run time limits, stage time limits and the warnings before them
+    private final TimerWheel timers;
+    private final long runTimeLimitMillis;
+    private final List<Integer> timeWarningSeconds;
 
-    public DungeonManager(JavaPlugin plugin, DatabaseManager databaseManager) {
+    // Keeps runs across restarts; keys of runs that could not be restored wait for their leader
+    private final RunJournal journal;
+    private final Map<UUID, List<StoredRun>> pendingRefunds;
+
+    // Entry attempt debounce
+    private final Map<UUID, Long> lastEntryAttempts;
+    private final Set<UUID> entriesInProgress;
+    private final long entryCooldownMillis;
+
+    // Notified when dungeons or their preview items change
+    private final List<Runnable> changeListeners;
+
+    /**
+     * Creates the dungeon manager and loads dungeons and their preview items.
+     *
+     * @param plugin The plugin instance
+     * @param databaseManager The database manager
+     * @param partyManager The party service shared by the plugin
+     */
+    public DungeonManager(JavaPlugin plugin, DatabaseManager databaseManager, PartyManager partyManager) {
         this.plugin = plugin;
         this.databaseManager = databaseManager;
-        this.categories = new LinkedHashMap<>();
-        this.dungeons = new HashMap<>();
-        this.playerStages = new HashMap<>();
-        this.activeDungeons = new HashMap<>();
-        this.memberLeaders = new HashMap<>();
-        this.dungeonTimers = new HashMap<>();
+        this.partyManager = partyManager;
+        this.catalogFile = new File(plugin.getDataFolder(), "dungeons.yml");
+        this.catalogVersions = new AtomicLong();
+        this.catalog = DungeonCatalog.EMPTY;
+        this.runs = new DungeonRunRegistry();
+        this.lastEntryAttempts = new HashMap<>();
+        this.entriesInProgress = new HashSet<>();
+        this.changeListeners = new ArrayList<>();
+        this.entryCooldownMillis = plugin.getConfig().getLong("settings.entry_cooldown_ms", 1000L);
+        this.scheduler = new InstanceScheduler(runs,
+                plugin.getConfig().getInt("settings.default_instances", 1),
+                plugin.getConfig().getInt("settings.max_active_runs", 0),
+                plugin.getConfig().getLong("settings.default_run_minutes", 15L) * 60_000L);
+        this.matchmaking = new MatchmakingService(plugin, this);
+        this.timers = new TimerWheel(plugin, 20L);
+        this.runTimeLimitMillis = plugin.getConfig().getLong("settings.run_time_limit_minutes", 30L) * 60_000L;
+        this.timeWarningSeconds = new ArrayList<>(plugin.getConfig().getIntegerList("settings.time_warnings_seconds"));
+        this.journal = new RunJournal(plugin, databaseManager);
+        this.pendingRefunds = new HashMap<>();
         loadDungeonConfig();
         loadPreviewItems();
+        restoreRuns();
     }
 
     /**
      * Loads categories and dungeons from the dungeons.yml file.
+     * Problems are logged; dungeons that could be read are still loaded.
      */
     private void loadDungeonConfig() {
-        File file = new File(plugin.getDataFolder(), "dungeons.yml");
-        FileConfiguration config = YamlConfiguration.loadConfiguration(file);
-        ConfigurationSection categoriesSection = config.getConfigurationSection("categories");
-        if (categoriesSection == null) return;
-
-        for (String categoryId : categoriesSection.getKeys(false)) {
-            ConfigurationSection catSec = categoriesSection.getConfigurationSection(categoryId);
-            String name = catSec.getString("name");
-            String description = catSec.getString("description");
-            Material icon = Material.matchMaterial(catSec.getString("icon", "STONE"));
-            DungeonCategory category = new DungeonCategory(categoryId, name, description, icon);
-            categories.put(categoryId, category);
-
-            ConfigurationSection dungeonsSection = catSec.getConfigurationSection("dungeons");
-            if (dungeonsSection != null) {
-                for (String dungeonId : dungeonsSection.getKeys(false)) {
-                    ConfigurationSection dSec = dungeonsSection.getConfigurationSection(dungeonId);
-                    String dName = dSec.getString("name");
-                    String dDesc = dSec.getString("description");
-                    int tier = dSec.getInt("tier");
-                    int requiredLevel = dSec.getInt("requiredLevel");
-                    int minParty = dSec.getInt("minPartySize");
-                    int maxParty = dSec.getInt("maxPartySize");
-                    Material dIcon = Material.matchMaterial(dSec.getString("icon", "STONE"));
-                    String fullId = categoryId + "_" + dungeonId;
-                    Dungeon dungeon = new Dungeon(fullId, dName, dDesc, tier, requiredLevel,
-                            minParty, maxParty, dIcon, categoryId);
-                    if (dSec.contains("keyId") && dSec.contains("keyDisplayName")) {
-                        dungeon.setKeyId(dSec.getString("keyId"));
-                        dungeon.setKeyDisplayName(dSec.getString("keyDisplayName"));
-                    }
-                    if (dSec.contains("entryWarp")) {
-                        dungeon.setEntryWarp(dSec.getString("entryWarp"));
+        List<String> problems = new ArrayList<>();
+        DungeonCatalog loaded = DungeonCatalogLoader.load(catalogFile, catalogVersions.incrementAndGet(), problems);
+        for (String problem : problems) {
+            plugin.getLogger().warning("dungeons.yml: " + problem);
+        }
+        if (loaded != null) {
+            catalog = loaded;
+        }
+
+        DungeonCatalog current = catalog;
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Loaded " + current.getCategories().size() + " categories and " +
+                current.getDungeons().size() + " dungeons from config");
+        notifyChangeListeners();
+    }
+
+    /**
+     * Reloads dungeons.yml. The file is parsed and validated off the main thread;
+     * if it has no problems the new catalog replaces the current one on the main
+     * thread. Preview items carry over to dungeons with the same ID, and running
+     * dungeons finish with the version they were started with.
+     *
+     * @return A future completed on the main thread with the problems found, empty if the reload was applied
+     */
+    public CompletableFuture<List<String>> reloadCatalog() {
+        long version = catalogVersions.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+                    List<String> problems = new ArrayList<>();
+                    DungeonCatalog loaded = DungeonCatalogLoader.load(catalogFile, version, problems);
+                    return new AbstractMap.SimpleImmutableEntry<>(loaded, problems);
+                })
+                .thenApplyAsync(result -> {
+                    DungeonCatalog loaded = result.getKey();
+                    List<String> problems = result.getValue();
+                    if (loaded == null || !problems.isEmpty()) {
+                        return problems;
                     }
-                    if (dSec.isConfigurationSection("stages")) {
-                        ConfigurationSection stagesSec = dSec.getConfigurationSection("stages");
-                        for (String stageKey : stagesSec.getKeys(false)) {
-                            ConfigurationSection s = stagesSec.getConfigurationSection(stageKey);
-                            int number = s.getInt("number", Integer.parseInt(stageKey));
-                            String sDesc = s.getString("description", "");
-                            String warp = s.getString("warp", "");
-                            String mob = s.getString("triggerMob");
-                            dungeon.addQuestStage(new QuestStage(number, sDesc, warp, mob));
-                        }
+                    // A newer reload may already have been applied
+                    if (loaded.getVersion() > catalog.getVersion()) {
+                        swapCatalog(loaded);
                     }
-                    dungeons.put(fullId, dungeon);
-                    category.addDungeon(dungeon);
-                }
-            }
-        }
+                    return problems;
+                }, databaseManager.mainThreadExecutor());
+    }
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Loaded " + categories.size() + " categories and " + dungeons.size() + " dungeons from config");
+    private void swapCatalog(DungeonCatalog loaded) {
+        DungeonCatalog previous = catalog;
+        for (Dungeon dungeon : loaded.getDungeons().values()) {
+            Dungeon old = previous.getDungeon(dungeon.getId());
+            if (old != null) {
+                dungeon.adoptPreview(old);
+            }
         }
+        catalog = loaded;
+        notifyChangeListeners();
+        plugin.getLogger().info("Reloaded dungeons.yml: " + loaded.getCategories().size() + " categories and " +
+                loaded.getDungeons().size() + " dungeons (" + runs.size() + " running dungeons keep their previous version)");
     }
 
     /**
-     * Loads preview items for all dungeons from the database.
+     * Loads preview items for all dungeons from the database in one query.
      */
     private void loadPreviewItems() {
-        for (Dungeon dungeon : dungeons.values()) {
-            Map<Integer, ItemStack> items = databaseManager.loadPreviewItems(dungeon.getId());
-            dungeon.setPreviewItems(items);
-            if (debuggingFlag == 1) {
-                plugin.getLogger().info("Loaded " + items.size() + " preview items for dungeon " + dungeon.getName());
-            }
-        }
+        long start = System.nanoTime();
+        databaseManager.loadAllPreviewItemsAsync()
+                .thenAcceptAsync(allItems -> {
+                    int total = 0;
+                    Collection<Dungeon> dungeons = catalog.getDungeons().values();
+                    for (Dungeon dungeon : dungeons) {
+                        StoredPreview stored = allItems.getOrDefault(dungeon.getId(), new StoredPreview());
+                        Map<Integer, ItemStack> items = stored.getItems();
+                        dungeon.setPreviewItems(items);
+                        // Legacy Base64 rows are rewritten in the binary format on the next save
+                        dungeon.markPreviewSlotsDirty(stored.getLegacySlots());
+                        total += items.size();
+                        DebugLogger.debug(Subsystem.DUNGEON, () -> "Loaded " + items.size() + " preview items for dungeon " + dungeon.getName());
+                    }
+                    notifyChangeListeners();
+                    long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+                    plugin.getLogger().info("Loaded " + total + " preview items for " + dungeons.size() +
+                            " dungeons in " + elapsedMs + " ms (item cache: " + databaseManager.getItemCache().getStats() + ")");
+                }, databaseManager.mainThreadExecutor());
     }
 
     // ---------------------------------------------------------------------
@@ -136,28 +199,30 @@ public class DungeonManager {
      * @return True if the party can enter the dungeon, false otherwise
      */
     public boolean canEnterDungeon(Player leader, String dungeonId) {
-        Dungeon dungeon = dungeons.get(dungeonId);
+        Dungeon dungeon = catalog.getDungeon(dungeonId);
         if (dungeon == null) {
             leader.sendMessage("§cDungeon not found: " + dungeonId);
             return false;
         }
+        return canEnterDungeon(leader, dungeon, partyManager.getSnapshot(leader));
+    }
 
+    private boolean canEnterDungeon(Player leader, Dungeon dungeon, PartySnapshot party) {
         // Check if player is party leader
-        PartyManager partyManager = new PartyManager(plugin);
-        if (!partyManager.isPartyLeader(leader)) {
+        if (!party.isLeader()) {
             leader.sendMessage("§cYou must be the party leader to enter a dungeon.");
             return false;
         }
 
         // Check if player is in a party
-        if (!partyManager.isInParty(leader)) {
+        if (!party.isInParty()) {
             leader.sendMessage("§cYou must be in a party to enter a dungeon.");
             leader.sendMessage("§cUse /party create to create a party.");
             return false;
         }
 
         // Check if party has appropriate size
-        int partySize = partyManager.getPartySize(leader);
+        int partySize = party.getSize();
         if (partySize < dungeon.getMinPartySize() || partySize > dungeon.getMaxPartySize()) {
             leader.sendMessage("§cYour party size (" + partySize + ") does not meet the requirements (" +
                               dungeon.getMinPartySize() + "-" + dungeon.getMaxPartySize() + ").");
@@ -165,8 +230,7 @@ public class DungeonManager {
         }
 
         // Check if all players have required level
-        List<Player> partyMembers = partyManager.getPartyMembers(leader);
-        for (Player member : partyMembers) {
+        for (Player member : party.getMembers()) {
             int playerLevel = getPlayerLevel(member);
             if (playerLevel < dungeon.getRequiredLevel()) {
                 leader.sendMessage("§c" + member.getName() + " does not meet the level requirement (" +
@@ -175,9 +239,7 @@ public class DungeonManager {
             }
         }
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Party led by " + leader.getName() + " meets all requirements for dungeon: " + dungeon.getName());
-        }
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Party led by " + leader.getName() + " meets all requirements for dungeon: " + dungeon.getName());
 
         return true;
     }
@@ -190,93 +252,335 @@ public class DungeonManager {
      * @return True if the party successfully entered the dungeon, false otherwise
      */
     public boolean enterDungeon(Player leader, String dungeonId) {
-        if (!canEnterDungeon(leader, dungeonId)) {
-            if (debuggingFlag == 1) {
-                plugin.getLogger().info("Player " + leader.getName() + " cannot enter dungeon " + dungeonId);
-            }
+        if (!tryStartEntryAttempt(leader)) {
             return false;
         }
+        try {
+            return attemptEntry(leader, dungeonId, false);
+        } finally {
+            entriesInProgress.remove(leader.getUniqueId());
+        }
+    }
 
-        Dungeon dungeon = dungeons.get(dungeonId);
-        PartyManager partyManager = new PartyManager(plugin);
-        List<Player> partyMembers = partyManager.getPartyMembers(leader);
+    /**
+     * Rejects repeated entry attempts before any party or inventory checks.
+     * Attempts within the configured cooldown, attempts while another attempt is
+     * still running, and attempts by players already inside a dungeon are refused.
+     *
+     * @param player The player attempting to enter
+     * @return True if the attempt may proceed
+     */
+    private boolean tryStartEntryAttempt(Player player) {
+        UUID playerId = player.getUniqueId();
+        long now = System.currentTimeMillis();
+        Long lastAttempt = lastEntryAttempts.get(playerId);
+        if (lastAttempt != null && now - lastAttempt < entryCooldownMillis) {
+            return false;
+        }
+        lastEntryAttempts.put(playerId, now);
 
-        // Check if there's a required key
-        if (dungeon.requiresKey()) {
-            String keyId = dungeon.getKeyId();
-            String keyName = dungeon.getKeyDisplayName();
+        if (runs.getRunOf(playerId) != null) {
+            player.sendMessage("§cYou are already in a dungeon.");
+            return false;
+        }
+        return entriesInProgress.add(playerId);
+    }
 
-            if (debuggingFlag == 1) {
-                plugin.getLogger().info("Dungeon " + dungeon.getName() + " requires key: " + keyId);
-            }
+    /**
+     * Starts the run of a party whose turn in a dungeon's queue has come.
+     * The entry cooldown does not apply; all other requirements are checked again.
+     *
+     * @param leaderId The party leader
+     * @param dungeon The dungeon
+     */
+    private void admitFromQueue(UUID leaderId, Dungeon dungeon) {
+        Player leader = Bukkit.getPlayer(leaderId);
+        if (leader == null || !entriesInProgress.add(leaderId)) return;
+        try {
+            leader.sendMessage("§aAn instance of " + dungeon.getName() + " §ais free!");
+            attemptEntry(leader, dungeon.getId(), true);
+        } finally {
+            entriesInProgress.remove(leaderId);
+        }
+    }
 
-            Material keyMaterial = Material.TRIPWIRE_HOOK;
-            try {
-                Material matched = Material.getMaterial(keyId.toUpperCase());
-                if (matched != null) {
-                    keyMaterial = matched;
-                }
-            } catch (Exception ignored) {
+    private boolean attemptEntry(Player leader, String dungeonId, boolean admitted) {
+        Dungeon dungeon = catalog.getDungeon(dungeonId);
+        if (dungeon == null) {
+            leader.sendMessage("§cDungeon not found: " + dungeonId);
+            return false;
+        }
+
+        // Resolve the party once for all checks below
+        PartySnapshot party = partyManager.getSnapshot(leader);
+        if (!canEnterDungeon(leader, dungeon, party)) {
+            DebugLogger.debug(Subsystem.DUNGEON, () -> "Player " + leader.getName() + " cannot enter dungeon " + dungeonId);
+            return false;
+        }
+
+        List<Player> partyMembers = party.getMembers();
+        for (Player member : partyMembers) {
+            if (runs.getRunOf(member.getUniqueId()) != null) {
+                leader.sendMessage("§c" + member.getName() + " is already in a dungeon.");
+                return false;
             }
+        }
 
-            Inventory inv = leader.getInventory();
-            boolean removed = false;
-            String strippedRequired = ChatColor.stripColor(keyName.replace("&", "§"));
-            ItemStack[] contents = inv.getContents();
-            for (int i = 0; i < contents.length; i++) {
-                ItemStack item = contents[i];
-                if (item == null || item.getType() != keyMaterial) continue;
-                ItemMeta meta = item.getItemMeta();
-                if (meta == null || !meta.hasDisplayName()) continue;
-                String stripped = ChatColor.stripColor(meta.getDisplayName());
-                if (stripped.equals(strippedRequired)) {
-                    if (item.getAmount() > 1) {
-                        item.setAmount(item.getAmount() - 1);
-                    } else {
-                        inv.setItem(i, null);
-                    }
-                    removed = true;
-                    break;
-                }
+        if (!admitted && !scheduler.hasFreeSlot(dungeon)) {
+            // Don't let a party wait for a turn it cannot use
+            if (dungeon.requiresKey() && !collectKeyTokens(leader).contains(getKeyToken(dungeon))) {
+                leader.sendMessage("§cYou need the key: " + dungeon.getKeyDisplayName().replace("&", "§"));
+                return false;
             }
+            queueParty(leader, dungeon, partyMembers);
+            return false;
+        }
+
+        // Check if there's a required key
+        ItemStack key = null;
+        if (dungeon.requiresKey()) {
+            key = consumeKey(leader, dungeon);
+            if (key == null) return false;
+        }
+
+        launchRun(dungeon, leader, partyMembers, key, false);
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Party led by " + leader.getName() + " entered dungeon " + dungeon.getName());
 
-            if (!removed) {
-                leader.sendMessage("§cYou need the key: " + keyName.replace("&", "§"));
+        return true;
+    }
+
+    /**
+     * Starts a run for a group formed by matchmaking rather than a party.
+     * The first member leads the run and pays the key.
+     *
+     * @param dungeon The dungeon
+     * @param members The group members, all online
+     * @return True if the run started
+     */
+    public boolean startMatchedRun(Dungeon dungeon, List<Player> members) {
+        for (Player member : members) {
+            if (runs.getRunOf(member.getUniqueId()) != null || entriesInProgress.contains(member.getUniqueId())) {
                 return false;
             }
         }
+        Player leader = members.get(0);
+        ItemStack key = null;
+        if (dungeon.requiresKey()) {
+            key = consumeKey(leader, dungeon);
+            if (key == null) return false;
+        }
+
+        for (Player member : members) {
+            member.sendMessage("§aA group for §f" + dungeon.getName() + " §ahas been found!");
+        }
+        launchRun(dungeon, leader, members, key, true);
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Matched group of " + members.size() + " led by " + leader.getName() +
+                " entered dungeon " + dungeon.getName());
+        return true;
+    }
+
+    /**
+     * Removes one key for a dungeon from a player's inventory.
+     *
+     * @param holder The player paying the key
+     * @param dungeon The dungeon, which must require a key
+     * @return A copy of the removed key, or null if the player has none
+     */
+    private ItemStack consumeKey(Player holder, Dungeon dungeon) {
+        String keyId = dungeon.getKeyId();
+        String keyName = dungeon.getKeyDisplayName();
+
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Dungeon " + dungeon.getName() + " requires key: " + keyId);
+
+        String requiredKey = getKeyToken(dungeon);
+        Inventory inv = holder.getInventory();
+        ItemStack[] contents = inv.getContents();
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (requiredKey.equals(getKeyToken(item))) {
+                ItemStack key = item.clone();
+                key.setAmount(1);
+                if (item.getAmount() > 1) {
+                    item.setAmount(item.getAmount() - 1);
+                } else {
+                    inv.setItem(i, null);
+                }
+                return key;
+            }
+        }
 
-        String warpCommand = "warp " + (dungeon.getEntryWarp() != null ? dungeon.getEntryWarp() : dungeonId.toLowerCase());
+        holder.sendMessage("§cYou need the key: " + keyName.replace("&", "§"));
+        return null;
+    }
+
+    /**
+     * Warps a group into a dungeon and registers its run.
+     *
+     * @param dungeon The dungeon
+     * @param leader The group leader
+     * @param members All group members, including the leader
+     * @param warpEachMember True to warp every member, false to warp only the
+     *                      leader as parties follow their leader
+     */
+    private void launchRun(Dungeon dungeon, Player leader, List<Player> members, ItemStack key, boolean warpEachMember) {
+        String warpCommand = "warp " + (dungeon.getEntryWarp() != null ? dungeon.getEntryWarp() : dungeon.getId().toLowerCase());
         String entryMessage = "§aEntering dungeon: §f" + dungeon.getName();
 
-        for (Player member : partyMembers) {
+        for (Player member : members) {
             member.sendMessage("§6Preparing to enter dungeon...");
         }
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Executing warp command: " + warpCommand + " for player " + leader.getName());
-        }
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Executing warp command: " + warpCommand + " for player " + leader.getName());
 
-        leader.performCommand(warpCommand);
+        if (warpEachMember) {
+            for (Player member : members) {
+                member.performCommand(warpCommand);
+            }
+        } else {
+            leader.performCommand(warpCommand);
+        }
 
-        for (Player member : partyMembers) {
+        for (Player member : members) {
             member.sendMessage(entryMessage);
             member.sendMessage("§eGood luck on your adventure!");
-            memberLeaders.put(member.getUniqueId(), leader.getUniqueId());
         }
 
-        activeDungeons.put(leader.getUniqueId(), dungeonId);
-        playerStages.put(leader.getUniqueId(), 0);
-        BukkitTask task = Bukkit.getScheduler().runTaskLater(plugin, () -> endDungeon(leader, false), 20L * 60 * 30);
-        dungeonTimers.put(leader.getUniqueId(), task);
+        Set<UUID> memberIds = new LinkedHashSet<>();
+        for (Player member : members) {
+            memberIds.add(member.getUniqueId());
+            matchmaking.dequeue(member.getUniqueId());
+        }
+        DungeonRun run = new DungeonRun(dungeon, leader.getUniqueId(), memberIds);
+        run.setPaidKey(key, key != null ? ItemSerializationUtils.encodeItem(key) : null);
+        runs.register(run);
+        journal.recordChange(run);
+        startRunTimers(run);
+        startStageTimers(run);
+    }
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Party led by " + leader.getName() + " entered dungeon " + dungeon.getName());
+    private void queueParty(Player leader, Dungeon dungeon, List<Player> partyMembers) {
+        int position = scheduler.enqueue(leader.getUniqueId(), dungeon);
+        if (position < 0) {
+            Dungeon queued = catalog.getDungeon(scheduler.getQueuedDungeon(leader.getUniqueId()));
+            leader.sendMessage("§cYou are already waiting for " + (queued != null ? queued.getName() : "another dungeon") +
+                    "§c. Use /party_dungeon leavequeue to leave that queue.");
+            return;
         }
 
+        long waitMinutes = Math.max(1L, (scheduler.estimateWaitMillis(dungeon, position) + 59_999L) / 60_000L);
+        for (Player member : partyMembers) {
+            member.sendMessage("§eAll instances of " + dungeon.getName() + " §eare in use.");
+            member.sendMessage("§eYour party is §f#" + position + " §ein the queue, estimated wait: §f~" + waitMinutes + " min");
+        }
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Queued party of " + leader.getName() + " for dungeon " + dungeon.getName() +
+                " at position " + position);
+    }
+
+    /**
+     * Removes a player from the dungeon queue their party waits in and from
+     * matchmaking.
+     *
+     * @param player The party leader or solo player
+     * @return True if the player was queued
+     */
+    public boolean leaveQueue(Player player) {
+        boolean leftQueue = scheduler.dequeue(player.getUniqueId()) != null;
+        return matchmaking.dequeue(player.getUniqueId()) || leftQueue;
+    }
+
+    /**
+     * Gets a summary of the database task queue, for the admin run list.
+     *
+     * @return The persistence statistics
+     */
+    public String getPersistenceStats() {
+        return databaseManager.getPersistenceStats();
+    }
+
+    public InstanceScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public MatchmakingService getMatchmaking() {
+        return matchmaking;
+    }
+
+    /**
+     * Stops matchmaking and the run timers when the plugin is disabled and
+     * writes the state of running dungeons, which are restored on the next start.
+     * Must be called before the database manager is closed.
+     */
+    public void shutdown() {
+        matchmaking.stop();
+        timers.stop();
+        journal.close();
+    }
+
+    /**
+     * Restores the runs that had not ended when the server stopped. Runs of
+     * dungeons that were removed, that have no stages left or whose time limit
+     * passed meanwhile are dropped, and their key is given back to the leader.
+     */
+    private void restoreRuns() {
+        journal.load().thenAcceptAsync(storedRuns -> {
+            int restored = 0;
+            for (StoredRun storedRun : storedRuns) {
+                if (restoreRun(storedRun)) {
+                    restored++;
+                } else if (storedRun.getKey() != null) {
+                    pendingRefunds.computeIfAbsent(storedRun.getLeaderId(), id -> new ArrayList<>()).add(storedRun);
+                    Player leader = Bukkit.getPlayer(storedRun.getLeaderId());
+                    if (leader != null) {
+                        refundKeys(leader);
+                    }
+                } else {
+                    journal.recordEnd(storedRun.getRunId());
+                }
+            }
+            if (!storedRuns.isEmpty()) {
+                plugin.getLogger().info("Restored " + restored + " of " + storedRuns.size() + " dungeon runs");
+            }
+        }, databaseManager.mainThreadExecutor()).exceptionally(error -> {
+            plugin.getLogger().warning("Could not restore dungeon runs: " + error.getMessage());
+            return null;
+        });
+    }
+
+    private boolean restoreRun(StoredRun storedRun) {
+        Dungeon dungeon = catalog.getDungeon(storedRun.getDungeonId());
+        if (dungeon == null || storedRun.getStageIndex() >= dungeon.getQuestStages().size()) return false;
+        if (runTimeLimitMillis > 0 && System.currentTimeMillis() - storedRun.getStartTime() >= runTimeLimitMillis) return false;
+        for (UUID memberId : storedRun.getMemberIds()) {
+            if (runs.getRunOf(memberId) != null) return false;
+        }
+
+        DungeonRun run = new DungeonRun(storedRun.getRunId(), dungeon, storedRun.getLeaderId(), storedRun.getMemberIds(),
+                storedRun.getStartTime(), storedRun.getStageIndex());
+        run.setPaidKey(storedRun.getKey(), storedRun.getKeyBlob());
+        runs.register(run);
+        startRunTimers(run);
+        startStageTimers(run);
+        sendToMembers(run, "§eYour run of " + dungeon.getName() + " §ewas restored after a server restart.");
         return true;
     }
 
+    /**
+     * Gives a player the keys of their runs that could not be restored.
+     *
+     * @param player The former run leader
+     */
+    private void refundKeys(Player player) {
+        List<StoredRun> refunds = pendingRefunds.remove(player.getUniqueId());
+        if (refunds == null) return;
+        for (StoredRun storedRun : refunds) {
+            for (ItemStack leftover : player.getInventory().addItem(storedRun.getKey().clone()).values()) {
+                player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+            }
+            journal.recordEnd(storedRun.getRunId());
+        }
+        player.sendMessage("§eYour dungeon run could not be continued after a server restart, so your key was returned.");
+    }
+
     /**
      * Advances the party to the next quest stage for a dungeon.
      *
@@ -284,75 +588,326 @@ public class DungeonManager {
      * @param dungeonId dungeon identifier
      */
     public void advanceStage(Player leader, String dungeonId) {
-        Dungeon dungeon = dungeons.get(dungeonId);
-        if (dungeon == null) return;
+        DungeonRun run = runs.getRunOf(leader.getUniqueId());
+        if (run == null || !run.getDungeon().getId().equals(dungeonId)) return;
+        advanceStage(run);
+    }
 
-        int stageIndex = playerStages.getOrDefault(leader.getUniqueId(), 0);
-        List<QuestStage> stages = dungeon.getQuestStages();
-        if (stageIndex >= stages.size()) {
-            endDungeon(leader, true);
+    private void advanceStage(DungeonRun run) {
+        QuestStage stage = run.getCurrentStage();
+        if (stage == null) {
+            endRun(run, true);
             return;
         }
 
-        QuestStage stage = stages.get(stageIndex);
-        PartyManager partyManager = new PartyManager(plugin);
-        List<Player> members = partyManager.getPartyMembers(leader);
-        for (Player member : members) {
+        for (Player member : getOnlineMembers(run)) {
             if (stage.getWarp() != null && !stage.getWarp().isEmpty()) {
                 member.performCommand("warp " + stage.getWarp());
             }
             member.sendMessage("§a" + stage.getDescription());
         }
 
-        stageIndex++;
-        playerStages.put(leader.getUniqueId(), stageIndex);
-        if (stageIndex >= stages.size()) {
-            endDungeon(leader, true);
+        run.setStageIndex(run.getStageIndex() + 1);
+        run.cancelStageTimers();
+        if (run.getCurrentStage() == null) {
+            endRun(run, true);
+        } else {
+            journal.recordChange(run);
+            startStageTimers(run);
+        }
+    }
+
+    /**
+     * Schedules the end of a run when its time limit is reached, counted from
+     * when it started, and the warnings before that.
+     *
+     * @param run The run
+     */
+    private void startRunTimers(DungeonRun run) {
+        if (runTimeLimitMillis <= 0) return;
+        long remaining = runTimeLimitMillis - run.getElapsedMillis();
+        run.addRunTimer(timers.schedule(remaining / 50L, () -> {
+            sendToMembers(run, "§cYou ran out of time!");
+            endRun(run, false);
+        }));
+        for (int warning : timeWarningSeconds) {
+            long delay = remaining - warning * 1000L;
+            if (delay > 0) {
+                run.addRunTimer(timers.schedule(delay / 50L, () ->
+                        sendToMembers(run, "§e" + formatDuration(warning) + " left to complete the dungeon!")));
+            }
+        }
+    }
+
+    /**
+     * Schedules the time limit of the run's current stage, if it has one, and
+     * the warnings before it.
+     *
+     * @param run The run
+     */
+    private void startStageTimers(DungeonRun run) {
+        QuestStage stage = run.getCurrentStage();
+        if (stage == null || stage.getTimeLimitSeconds() <= 0) return;
+        int limit = stage.getTimeLimitSeconds();
+        run.addStageTimer(timers.schedule(limit * 20L, () -> {
+            sendToMembers(run, "§cYou ran out of time for this stage!");
+            endRun(run, false);
+        }));
+        for (int warning : timeWarningSeconds) {
+            if (warning < limit) {
+                run.addStageTimer(timers.schedule((limit - warning) * 20L, () ->
+                        sendToMembers(run, "§e" + formatDuration(warning) + " left to complete this stage!")));
+            }
         }
     }
 
+    private void sendToMembers(DungeonRun run, String message) {
+        for (Player member : getOnlineMembers(run)) {
+            member.sendMessage(message);
+        }
+    }
+
+    private static String formatDuration(int seconds) {
+        if (seconds >= 60 && seconds % 60 == 0) {
+            int minutes = seconds / 60;
+            return minutes + (minutes == 1 ? " minute" : " minutes");
+        }
+        return seconds + (seconds == 1 ? " second" : " seconds");
+    }
+
     /**
      * Handles mob deaths and advances stages when needed.
      *
      * @param killer player who killed the mob
-     * @param mobName name of the mob
-     */
-    public void handleMobDeath(Player killer, String mobName) {
-        UUID leaderId = memberLeaders.get(killer.getUniqueId());
-        if (leaderId == null) return;
-        String dungeonId = activeDungeons.get(leaderId);
-        if (dungeonId == null) return;
-        Dungeon dungeon = dungeons.get(dungeonId);
-        int stageIndex = playerStages.getOrDefault(leaderId, 0);
-        List<QuestStage> stages = dungeon.getQuestStages();
-        if (stageIndex >= stages.size()) return;
-        QuestStage stage = stages.get(stageIndex);
-        if (stage.getTriggerMob() != null && ChatColor.stripColor(mobName).equalsIgnoreCase(ChatColor.stripColor(stage.getTriggerMob()))) {
-            Player leader = Bukkit.getPlayer(leaderId);
-            if (leader != null) {
-                advanceStage(leader, dungeonId);
+     * @param mobName name of the mob, normalized with {@link DungeonCatalog#normalizeMobName(String)}
+     * @param location where the mob died
+     */
+    public void handleMobDeath(Player killer, String mobName, Location location) {
+        if (!runs.isActiveTrigger(mobName)) return;
+        DungeonRun run = runs.getRunOf(killer.getUniqueId());
+        if (run == null) return;
+        Dungeon dungeon = run.getDungeon();
+        // Mobs of the same name outside the dungeon's region don't count
+        if (dungeon.getArea() != null && !dungeon.getArea().contains(location)) return;
+        QuestStage stage = run.getCurrentStage();
+        if (stage != null && mobName.equals(stage.getNormalizedTriggerMob())) {
+            advanceStage(run);
+        }
+    }
+
+    /**
+     * Ends a run and tells its members how it went.
+     *
+     * @param run The run
+     * @param success Whether the party completed the dungeon
+     */
+    public void endRun(DungeonRun run, boolean success) {
+        if (!runs.unregister(run)) return;
+        run.cancelTimers();
+        journal.recordEnd(run.getRunId());
+        scheduler.recordRunDuration(run.getDungeon().getId(), run.getElapsedMillis());
+        for (Player member : getOnlineMembers(run)) {
+            member.sendMessage(success ? "§aDungeon completed!" : "§cDungeon failed!");
+        }
+        DebugLogger.debug(Subsystem.DUNGEON, () -> "Run " + run.getRunId() + " of dungeon " + run.getDungeon().getName() +
+                (success ? " completed" : " failed") + " after " + run.getElapsedMillis() / 1000L + " s");
+
+        admitWaitingParties(run.getDungeon().getId());
+    }
+
+    /**
+     * Hands freed instances to waiting parties, first for the dungeon whose run
+     * ended, then for other dungeons that were only waiting for the run cap.
+     *
+     * @param dungeonId The dungeon whose run ended
+     */
+    private void admitWaitingParties(String dungeonId) {
+        List<String> dungeonIds = scheduler.getQueuedDungeonIds();
+        dungeonIds.remove(dungeonId);
+        dungeonIds.add(0, dungeonId);
+        for (String id : dungeonIds) {
+            Dungeon current = catalog.getDungeon(id);
+            if (current != null) {
+                scheduler.admit(current, leaderId -> admitFromQueue(leaderId, current));
             }
         }
     }
 
-    private void endDungeon(Player leader, boolean success) {
-        String dungeonId = activeDungeons.remove(leader.getUniqueId());
-        BukkitTask task = dungeonTimers.remove(leader.getUniqueId());
-        if (task != null) task.cancel();
-        playerStages.remove(leader.getUniqueId());
+    private List<Player> getOnlineMembers(DungeonRun run) {
+        List<Player> members = new ArrayList<>(run.getMemberIds().size());
+        for (UUID memberId : run.getMemberIds()) {
+            Player member = Bukkit.getPlayer(memberId);
+            if (member != null) {
+                members.add(member);
+            }
+        }
+        return members;
+    }
 
-        PartyManager pm = new PartyManager(plugin);
-        List<Player> members = pm.getPartyMembers(leader);
-        for (Player member : members) {
-            memberLeaders.remove(member.getUniqueId());
-            member.sendMessage(success ? "§aDungeon completed!" : "§cDungeon failed!");
+    /**
+     * Gets the registry of running dungeons.
+     *
+     * @return The run registry
+     */
+    public DungeonRunRegistry getRuns() {
+        return runs;
+    }
+
+    /**
+     * Checks if a dungeon may be running in a world. Returns after a single
+     * counter check while no dungeon is running anywhere.
+     *
+     * @param world The world
+     * @return True if a running dungeon is limited to the world or has no world
+     */
+    public boolean hasActiveRunIn(World world) {
+        return runs.hasRunIn(world);
+    }
+
+    /**
+     * Checks if any catalog dungeon can be played in a world.
+     *
+     * @param world The world
+     * @return True if a dungeon is limited to the world or some dungeon has no world
+     */
+    public boolean isDungeonWorld(World world) {
+        return catalog.isDungeonWorld(world.getName());
+    }
+
+    /**
+     * Checks if mobs spawning in a world should be checked for trigger names:
+     * worlds a catalog dungeon is limited to, and worlds a run may be going on in.
+     * Dungeons without a world don't make every world count while nobody plays them.
+     *
+     * @param world The world
+     * @return True if spawns in the world should be checked
+     */
+    public boolean isMobTaggingWorld(World world) {
+        return catalog.isScopedDungeonWorld(world.getName()) || runs.hasRunIn(world);
+    }
+
+    /**
+     * Gets the token identifying the key item a dungeon requires.
+     * Keys are matched by material and display name without colors.
+     *
+     * @param dungeon The dungeon, which must require a key
+     * @return The key token
+     */
+    public String getKeyToken(Dungeon dungeon) {
+        Material keyMaterial = Material.TRIPWIRE_HOOK;
+        try {
+            Material matched = Material.getMaterial(dungeon.getKeyId().toUpperCase());
+            if (matched != null) {
+                keyMaterial = matched;
+            }
+        } catch (Exception ignored) {
+        }
+        return keyMaterial.name() + ":" + ChatColor.stripColor(dungeon.getKeyDisplayName().replace("&", "§"));
+    }
+
+    /**
+     * Gets the key token of an item.
+     *
+     * @param item The item
+     * @return The key token, or null if the item has no display name
+     */
+    private String getKeyToken(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return null;
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null || !meta.hasDisplayName()) return null;
+        return item.getType().name() + ":" + ChatColor.stripColor(meta.getDisplayName());
+    }
+
+    /**
+     * Collects the key tokens of every named item in a player's inventory in one pass.
+     *
+     * @param player The player
+     * @return The key tokens the player holds
+     */
+    public Set<String> collectKeyTokens(Player player) {
+        Set<String> tokens = new HashSet<>();
+        for (ItemStack item : player.getInventory().getContents()) {
+            String token = getKeyToken(item);
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Checks if a player cannot start a dungeon entry right now because they are
+     * inside a dungeon, still on the entry cooldown, or already entering one.
+     *
+     * @param player The player
+     * @return True if an entry attempt would be refused
+     */
+    public boolean isEntryBlocked(Player player) {
+        UUID playerId = player.getUniqueId();
+        if (runs.getRunOf(playerId) != null || entriesInProgress.contains(playerId)) {
+            return true;
+        }
+        Long lastAttempt = lastEntryAttempts.get(playerId);
+        return lastAttempt != null && System.currentTimeMillis() - lastAttempt < entryCooldownMillis;
+    }
+
+    /**
+     * Checks if a player is inside a running dungeon.
+     *
+     * @param player The player
+     * @return True if the player's party is running a dungeon
+     */
+    public boolean isInDungeon(Player player) {
+        return runs.getRunOf(player.getUniqueId()) != null;
+    }
+
+    /**
+     * Checks if killing a mob can advance a stage of any catalog dungeon, used
+     * to decide which spawned mobs are tagged as dungeon mobs.
+     *
+     * @param mobName The mob name, normalized with {@link DungeonCatalog#normalizeMobName(String)}
+     * @return True if a stage is triggered by the mob
+     */
+    public boolean isTriggerMob(String mobName) {
+        return catalog.isTriggerMob(mobName) || runs.isActiveTrigger(mobName);
+    }
+
+    public PartyManager getPartyManager() {
+        return partyManager;
+    }
+
+    /**
+     * Gives back keys of runs lost in a restart and reminds players of the run
+     * they are in.
+     *
+     * @param player The player who joined
+     */
+    public void handlePlayerJoin(Player player) {
+        refundKeys(player);
+        DungeonRun run = runs.getRunOf(player.getUniqueId());
+        if (run != null) {
+            player.sendMessage("§eYou are still in §f" + run.getDungeon().getName() + "§e.");
         }
     }
 
+    /**
+     * Forgets per-player state kept for a player who left the server.
+     *
+     * @param player The player who quit
+     */
+    public void handlePlayerQuit(Player player) {
+        lastEntryAttempts.remove(player.getUniqueId());
+        scheduler.dequeue(player.getUniqueId());
+        matchmaking.dequeue(player.getUniqueId());
+    }
+
     /**
      * Gets player level from MyExperiencePlugin if available.
+     *
+     * @param player The player
+     * @return The player's level, or 0 if unavailable
      */
-    private int getPlayerLevel(Player player) {
+    public int getPlayerLevel(Player player) {
         Plugin exp = Bukkit.getPluginManager().getPlugin("MyExperiencePlugin");
         if (exp instanceof MyExperienceAPI) {
             return ((MyExperienceAPI) exp).getPlayerLevel(player);
@@ -364,39 +919,75 @@ public class DungeonManager {
     // Getters and persistence
     // ---------------------------------------------------------------------
 
+    /**
+     * Registers a callback run on the main thread whenever dungeons or their
+     * preview items change, e.g. to drop cached menus.
+     *
+     * @param listener The callback
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyChangeListeners() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Gets the current catalog. Hold on to the returned catalog when reading it
+     * several times, a reload may replace it between calls.
+     *
+     * @return The current catalog
+     */
+    public DungeonCatalog getCatalog() {
+        return catalog;
+    }
+
     public Map<String, DungeonCategory> getCategories() {
-        return categories;
+        return catalog.getCategories();
     }
 
     public DungeonCategory getCategory(String categoryId) {
-        return categories.get(categoryId);
+        return catalog.getCategory(categoryId);
     }
 
     public Map<String, Dungeon> getDungeons() {
-        return dungeons;
+        return catalog.getDungeons();
     }
 
     public Dungeon getDungeon(String dungeonId) {
-        return dungeons.get(dungeonId);
+        return catalog.getDungeon(dungeonId);
     }
 
     public List<Dungeon> getDungeonsByCategory(String categoryId) {
-        DungeonCategory category = categories.get(categoryId);
+        DungeonCategory category = catalog.getCategory(categoryId);
         return category != null ? category.getDungeons() : Collections.emptyList();
     }
 
     /**
-     * Saves preview items for a dungeon to the database.
+     * Saves changed preview slots for a dungeon to the database.
+     * The changes are copied on the calling thread and written asynchronously;
+     * if the write fails the slots are marked as changed again.
      *
      * @param dungeonId The ID of the dungeon
      */
     public void savePreviewItems(String dungeonId) {
-        Dungeon dungeon = dungeons.get(dungeonId);
-        if (dungeon != null) {
-            databaseManager.savePreviewItems(dungeonId, dungeon.getPreviewItems());
-            if (debuggingFlag == 1) {
-                plugin.getLogger().info("Saved preview items for dungeon " + dungeon.getName());
-            }
-        }
+        Dungeon dungeon = catalog.getDungeon(dungeonId);
+        if (dungeon == null || !dungeon.hasPreviewChanges()) return;
+
+        Map<Integer, ItemStack> changes = dungeon.drainPreviewChanges();
+        notifyChangeListeners();
+        databaseManager.savePreviewChangesAsync(dungeonId, changes)
+                .whenCompleteAsync((ignored, error) -> {
+                    if (error != null) {
+                        // A reload may have replaced the dungeon while the write was running
+                        Dungeon current = catalog.getDungeon(dungeonId);
+                        (current != null ? current : dungeon).markPreviewSlotsDirty(changes.keySet());
+                        return;
+                    }
+                    DebugLogger.debug(Subsystem.DUNGEON, () -> "Saved " + changes.size() + " changed preview slots for dungeon " + dungeon.getName());
+                }, databaseManager.mainThreadExecutor());
     }
 }
@@ -0,0 +1,146 @@
+package maks.com.groupDungeonPlugin.api;
+
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.DungeonRun;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * All running dungeons, indexed by run ID and by member so that every lookup on
+ * a hot path is a single map access. Also keeps the counters used to ignore
+ * events in worlds and for mobs that no running dungeon cares about.
+ * Only accessed from the main thread.
+ */
+public class DungeonRunRegistry {
+    private final Map<UUID, DungeonRun> runsById = new LinkedHashMap<>();
+    private final Map<UUID, DungeonRun> runsByMember = new HashMap<>();
+    private final Map<String, List<DungeonRun>> runsByDungeon = new HashMap<>();
+
+    // Normalized trigger mob name -> number of runs that use it
+    private final Map<String, Integer> activeTriggerMobs = new HashMap<>();
+    // Runs per world, and runs of dungeons without a world
+    private final Map<String, Integer> runsByWorld = new HashMap<>();
+    private int unscopedRunCount;
+
+    /**
+     * Adds a run. Its members must not be in another run.
+     *
+     * @param run The run
+     */
+    public void register(DungeonRun run) {
+        runsById.put(run.getRunId(), run);
+        for (UUID member : run.getMemberIds()) {
+            runsByMember.put(member, run);
+        }
+        runsByDungeon.computeIfAbsent(run.getDungeon().getId(), id -> new ArrayList<>()).add(run);
+
+        Dungeon dungeon = run.getDungeon();
+        if (dungeon.getArea() != null) {
+            runsByWorld.merge(dungeon.getArea().getWorld(), 1, Integer::sum);
+        } else {
+            unscopedRunCount++;
+        }
+        for (String mob : dungeon.getTriggerMobs()) {
+            activeTriggerMobs.merge(mob, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Removes a run.
+     *
+     * @param run The run
+     * @return True if the run was registered
+     */
+    public boolean unregister(DungeonRun run) {
+        if (runsById.remove(run.getRunId()) == null) return false;
+        for (UUID member : run.getMemberIds()) {
+            runsByMember.remove(member, run);
+        }
+        List<DungeonRun> dungeonRuns = runsByDungeon.get(run.getDungeon().getId());
+        if (dungeonRuns != null) {
+            dungeonRuns.remove(run);
+            if (dungeonRuns.isEmpty()) {
+                runsByDungeon.remove(run.getDungeon().getId());
+            }
+        }
+
+        Dungeon dungeon = run.getDungeon();
+        if (dungeon.getArea() != null) {
+            runsByWorld.computeIfPresent(dungeon.getArea().getWorld(), (key, count) -> count > 1 ? count - 1 : null);
+        } else {
+            unscopedRunCount--;
+        }
+        for (String mob : dungeon.getTriggerMobs()) {
+            activeTriggerMobs.computeIfPresent(mob, (key, count) -> count > 1 ? count - 1 : null);
+        }
+        return true;
+    }
+
+    public DungeonRun getRun(UUID runId) {
+        return runsById.get(runId);
+    }
+
+    /**
+     * Gets the run a player is part of.
+     *
+     * @param memberId The player's UUID
+     * @return The run, or null if the player is not in a dungeon
+     */
+    public DungeonRun getRunOf(UUID memberId) {
+        return runsByMember.get(memberId);
+    }
+
+    /**
+     * Gets all runs in start order.
+     *
+     * @return unmodifiable collection of runs
+     */
+    public Collection<DungeonRun> getRuns() {
+        return Collections.unmodifiableCollection(runsById.values());
+    }
+
+    /**
+     * Gets the runs of a dungeon, including runs pinned to an older version of it.
+     *
+     * @param dungeonId The dungeon ID
+     * @return unmodifiable list of runs in start order
+     */
+    public List<DungeonRun> getRunsOf(String dungeonId) {
+        List<DungeonRun> dungeonRuns = runsByDungeon.get(dungeonId);
+        return dungeonRuns != null ? Collections.unmodifiableList(dungeonRuns) : Collections.emptyList();
+    }
+
+    public int size() {
+        return runsById.size();
+    }
+
+    /**
+     * Checks if a run may be going on in a world. Returns after a single size
+     * check while nothing is running.
+     *
+     * @param world The world
+     * @return True if a run's dungeon is limited to the world or has no world
+     */
+    public boolean hasRunIn(World world) {
+        if (runsById.isEmpty()) return false;
+        return unscopedRunCount > 0 || runsByWorld.containsKey(world.getName());
+    }
+
+    /**
+     * Checks if killing a mob can advance a stage of any run.
+     *
+     * @param mobName The normalized mob name
+     * @return True if some running dungeon has a stage triggered by the mob
+     */
+    public boolean isActiveTrigger(String mobName) {
+        return activeTriggerMobs.containsKey(mobName);
+    }
+}
@@ -0,0 +1,249 @@
+package maks.com.groupDungeonPlugin.api;
+
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.DungeonRun;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Limits how many parties play a dungeon at the same time and queues the rest.
+ *
+ * Each dungeon has a number of instance slots, and the number of runs across
+ * all dungeons may be capped. Parties that find no slot wait in a first-come,
+ * first-served queue per dungeon and are admitted when a run ends. Wait estimates use a moving average of past run durations.
+ * Only accessed from the main thread.
+ */
+public class InstanceScheduler {
+    // Weight of the newest run in the moving average of run durations
+    private static final double DURATION_WEIGHT = 0.3;
+
+    private final DungeonRunRegistry runs;
+    private final int defaultInstances;
+    private final int maxActiveRuns;
+    private final long defaultRunMillis;
+
+    private final Map<String, Deque<UUID>> queues = new HashMap<>();
+    private final Map<UUID, String> queuedLeaders = new HashMap<>();
+    private final Map<String, Double> averageRunMillis = new HashMap<>();
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param runs The registry of running dungeons
+     * @param defaultInstances Instances of dungeons that do not configure their own, 0 for no limit
+     * @param maxActiveRuns Runs allowed across all dungeons, 0 for no limit
+     * @param defaultRunMillis Run duration assumed before a dungeon has been completed
+     */
+    public InstanceScheduler(DungeonRunRegistry runs, int defaultInstances, int maxActiveRuns, long defaultRunMillis) {
+        this.runs = runs;
+        this.defaultInstances = defaultInstances;
+        this.maxActiveRuns = maxActiveRuns;
+        this.defaultRunMillis = defaultRunMillis;
+    }
+
+    /**
+     * Gets the number of parties that can play a dungeon at the same time.
+     *
+     * @param dungeon The dungeon
+     * @return The number of instances, 0 for no limit
+     */
+    public int getInstances(Dungeon dungeon) {
+        return dungeon.getInstances() > 0 ? dungeon.getInstances() : defaultInstances;
+    }
+
+    /**
+     * Gets the number of runs allowed across all dungeons.
+     *
+     * @return The limit, 0 for no limit
+     */
+    public int getMaxActiveRuns() {
+        return maxActiveRuns;
+    }
+
+    /**
+     * Checks if a party can start a dungeon right away. Parties already waiting
+     * come first, so a free slot is only available to newcomers when nobody waits.
+     *
+     * @param dungeon The dungeon
+     * @return True if a slot is free and the queue is empty
+     */
+    public boolean hasFreeSlot(Dungeon dungeon) {
+        Deque<UUID> queue = queues.get(dungeon.getId());
+        return (queue == null || queue.isEmpty()) && hasCapacity(dungeon);
+    }
+
+    private boolean hasCapacity(Dungeon dungeon) {
+        if (maxActiveRuns > 0 && runs.size() >= maxActiveRuns) return false;
+        int instances = getInstances(dungeon);
+        return instances <= 0 || runs.getRunsOf(dungeon.getId()).size() < instances;
+    }
+
+    /**
+     * Adds a party leader to the end of a dungeon's queue.
+     *
+     * @param leaderId The party leader
+     * @param dungeon The dungeon
+     * @return The 1-based position in the queue, or -1 if the leader waits for another dungeon
+     */
+    public int enqueue(UUID leaderId, Dungeon dungeon) {
+        String queued = queuedLeaders.get(leaderId);
+        if (queued != null) {
+            return queued.equals(dungeon.getId()) ? getPosition(leaderId) : -1;
+        }
+        Deque<UUID> queue = queues.computeIfAbsent(dungeon.getId(), id -> new ArrayDeque<>());
+        queue.addLast(leaderId);
+        queuedLeaders.put(leaderId, dungeon.getId());
+        return queue.size();
+    }
+
+    /**
+     * Removes a party leader from the queue they wait in.
+     *
+     * @param leaderId The party leader
+     * @return The ID of the dungeon they waited for, or null if they were not queued
+     */
+    public String dequeue(UUID leaderId) {
+        String dungeonId = queuedLeaders.remove(leaderId);
+        if (dungeonId == null) return null;
+        Deque<UUID> queue = queues.get(dungeonId);
+        if (queue != null) {
+            queue.remove(leaderId);
+            if (queue.isEmpty()) {
+                queues.remove(dungeonId);
+            }
+        }
+        return dungeonId;
+    }
+
+    /**
+     * Gets the dungeon a party leader waits for.
+     *
+     * @param leaderId The party leader
+     * @return The dungeon ID, or null if the leader is not queued
+     */
+    public String getQueuedDungeon(UUID leaderId) {
+        return queuedLeaders.get(leaderId);
+    }
+
+    /**
+     * Gets a party leader's position in their queue.
+     *
+     * @param leaderId The party leader
+     * @return The 1-based position, or -1 if the leader is not queued
+     */
+    public int getPosition(UUID leaderId) {
+        String dungeonId = queuedLeaders.get(leaderId);
+        if (dungeonId == null) return -1;
+        int position = 1;
+        for (UUID queued : queues.get(dungeonId)) {
+            if (queued.equals(leaderId)) return position;
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the dungeons parties are waiting for.
+     *
+     * @return The dungeon IDs
+     */
+    public List<String> getQueuedDungeonIds() {
+        return new ArrayList<>(queues.keySet());
+    }
+
+    /**
+     * Gets the leaders waiting for a dungeon.
+     *
+     * @param dungeonId The dungeon ID
+     * @return The leaders in queue order
+     */
+    public List<UUID> getQueue(String dungeonId) {
+        Deque<UUID> queue = queues.get(dungeonId);
+        return queue != null ? new ArrayList<>(queue) : Collections.emptyList();
+    }
+
+    /**
+     * Estimates how long the party at a queue position waits for a slot.
+     *
+     * Each running instance is expected to end after the average run duration;
+     * the first parties take the slots as they free up, later ones wait for
+     * further runs to finish.
+     *
+     * @param dungeon The dungeon
+     * @param position The 1-based queue position
+     * @return The estimated wait in milliseconds, 0 for dungeons without an instance limit
+     */
+    public long estimateWaitMillis(Dungeon dungeon, int position) {
+        int instances = getInstances(dungeon);
+        if (instances <= 0) return 0L;
+        long average = getAverageRunMillis(dungeon.getId());
+
+        List<Long> remaining = new ArrayList<>();
+        for (DungeonRun run : runs.getRunsOf(dungeon.getId())) {
+            remaining.add(Math.max(0L, average - run.getElapsedMillis()));
+        }
+        while (remaining.size() < instances) {
+            remaining.add(0L);
+        }
+        Collections.sort(remaining);
+
+        int index = position - 1;
+        int slot = index % instances;
+        long rounds = index / instances;
+        return remaining.get(slot) + rounds * average;
+    }
+
+    /**
+     * Gets the average duration of a dungeon's runs.
+     *
+     * @param dungeonId The dungeon ID
+     * @return The average in milliseconds, or the configured default before any run ended
+     */
+    public long getAverageRunMillis(String dungeonId) {
+        Double average = averageRunMillis.get(dungeonId);
+        return average != null ? Math.round(average) : defaultRunMillis;
+    }
+
+    /**
+     * Records how long a finished run took.
+     *
+     * @param dungeonId The dungeon ID
+     * @param durationMillis The run duration
+     */
+    public void recordRunDuration(String dungeonId, long durationMillis) {
+        averageRunMillis.merge(dungeonId, (double) durationMillis,
+                (average, latest) -> average + DURATION_WEIGHT * (latest - average));
+    }
+
+    /**
+     * Takes the leaders that may now start a dungeon, in queue order, while slots
+     * are free. The caller starts their runs; a leader whose run cannot start
+     * does not block the others.
+     *
+     * @param dungeon The dungeon whose slot freed up
+     * @param admit Tries to start a run for a leader
+     */
+    public void admit(Dungeon dungeon, Consumer<UUID> admit) {
+        Deque<UUID> queue = queues.get(dungeon.getId());
+        if (queue == null) return;
+        Iterator<UUID> iterator = queue.iterator();
+        while (iterator.hasNext() && hasCapacity(dungeon)) {
+            UUID leaderId = iterator.next();
+            iterator.remove();
+            queuedLeaders.remove(leaderId);
+            admit.accept(leaderId);
+        }
+        if (queue.isEmpty()) {
+            queues.remove(dungeon.getId());
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package maks.com.groupDungeonPlugin.api;
+
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Forms groups of solo players for dungeons.
+ *
+ * Players queue for a dungeon and are pooled by level band, with their level read
+ * once when they join. A periodic pass launches a run for every full group in a
+ * band. Groups that cannot fill but have at least the minimum party size start
+ * after the fill timeout, and after that timeout players may also be matched with
+ * the neighbouring level band. The pass touches each ticket at most twice and
+ * never scans players who are not queued. Only accessed from the main thread.
+ */
+public class MatchmakingService {
+    private final JavaPlugin plugin;
+    private final DungeonManager dungeonManager;
+    private final int levelBand;
+    private final long fillTimeoutMillis;
+    private final long intervalTicks;
+
+    // Dungeon ID -> level band -> tickets in join order
+    private final Map<String, TreeMap<Integer, LinkedHashMap<UUID, Ticket>>> pools = new HashMap<>();
+    private final Map<UUID, Ticket> tickets = new HashMap<>();
+    private BukkitTask task;
+
+    /**
+     * Creates the matchmaking service from the "matchmaking" config section.
+     *
+     * @param plugin The plugin instance
+     * @param dungeonManager The dungeon manager that starts the runs
+     */
+    public MatchmakingService(JavaPlugin plugin, DungeonManager dungeonManager) {
+        this.plugin = plugin;
+        this.dungeonManager = dungeonManager;
+        FileConfiguration config = plugin.getConfig();
+        this.levelBand = Math.max(1, config.getInt("matchmaking.level-band", 10));
+        this.fillTimeoutMillis = config.getLong("matchmaking.fill-timeout-seconds", 30L) * 1000L;
+        this.intervalTicks = Math.max(1L, config.getLong("matchmaking.interval-ticks", 40L));
+    }
+
+    /**
+     * Starts the periodic matching pass.
+     */
+    public void start() {
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::matchAll, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Stops the periodic matching pass.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Adds a player to a dungeon's matchmaking pool after checking the
+     * requirements that do not depend on the group.
+     *
+     * @param player The player
+     * @param dungeon The dungeon
+     * @return True if the player was queued
+     */
+    public boolean enqueue(Player player, Dungeon dungeon) {
+        UUID playerId = player.getUniqueId();
+        Ticket existing = tickets.get(playerId);
+        if (existing != null) {
+            player.sendMessage("§cYou are already searching for a group for " + existing.dungeonId +
+                    ". Use /party_dungeon leavequeue first.");
+            return false;
+        }
+        if (dungeonManager.isEntryBlocked(player)) {
+            player.sendMessage("§cYou can't join a dungeon right now.");
+            return false;
+        }
+
+        int level = dungeonManager.getPlayerLevel(player);
+        if (level < dungeon.getRequiredLevel()) {
+            player.sendMessage("§cYou need level " + dungeon.getRequiredLevel() + " for this dungeon.");
+            return false;
+        }
+        // Only the group leader pays, but anyone may end up leading the group
+        if (dungeon.requiresKey() && !dungeonManager.collectKeyTokens(player).contains(dungeonManager.getKeyToken(dungeon))) {
+            player.sendMessage("§cYou need the key: " + dungeon.getKeyDisplayName().replace("&", "§"));
+            return false;
+        }
+
+        Ticket ticket = new Ticket(playerId, dungeon.getId(), level / levelBand, System.currentTimeMillis());
+        tickets.put(playerId, ticket);
+        pools.computeIfAbsent(ticket.dungeonId, id -> new TreeMap<>())
+                .computeIfAbsent(ticket.band, band -> new LinkedHashMap<>())
+                .put(playerId, ticket);
+        player.sendMessage("§eSearching for a group for §f" + dungeon.getName() + "§e (" +
+                dungeon.getMinPartySize() + "-" + dungeon.getMaxPartySize() + " players)...");
+        return true;
+    }
+
+    /**
+     * Removes a player from matchmaking.
+     *
+     * @param playerId The player
+     * @return True if the player was queued
+     */
+    public boolean dequeue(UUID playerId) {
+        Ticket ticket = tickets.remove(playerId);
+        if (ticket == null) return false;
+        TreeMap<Integer, LinkedHashMap<UUID, Ticket>> pool = pools.get(ticket.dungeonId);
+        if (pool != null) {
+            LinkedHashMap<UUID, Ticket> bucket = pool.get(ticket.band);
+            if (bucket != null) {
+                bucket.remove(playerId);
+                if (bucket.isEmpty()) pool.remove(ticket.band);
+            }
+            if (pool.isEmpty()) pools.remove(ticket.dungeonId);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the dungeon a player is searching a group for.
+     *
+     * @param playerId The player
+     * @return The dungeon ID, or null if the player is not queued
+     */
+    public String getQueuedDungeon(UUID playerId) {
+        Ticket ticket = tickets.get(playerId);
+        return ticket != null ? ticket.dungeonId : null;
+    }
+
+    public int getQueuedPlayerCount() {
+        return tickets.size();
+    }
+
+    /**
+     * Runs one matching pass over all pools.
+     */
+    public void matchAll() {
+        if (tickets.isEmpty()) return;
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int queued = tickets.size();
+
+        for (String dungeonId : new ArrayList<>(pools.keySet())) {
+            Dungeon dungeon = dungeonManager.getDungeon(dungeonId);
+            if (dungeon == null) {
+                // Removed by a reload
+                for (LinkedHashMap<UUID, Ticket> bucket : pools.get(dungeonId).values()) {
+                    for (UUID playerId : new ArrayList<>(bucket.keySet())) {
+                        dequeue(playerId);
+                        Player player = Bukkit.getPlayer(playerId);
+                        if (player != null) player.sendMessage("§cThe dungeon you queued for is no longer available.");
+                    }
+                }
+                continue;
+            }
+            matchPool(dungeon, pools.get(dungeonId), now);
+        }
+
+        DebugLogger.debug(Subsystem.PARTY, () -> "Matchmaking pass over " + queued + " players took " +
+                (System.nanoTime() - start) / 1000L + " µs, " + tickets.size() + " still waiting");
+    }
+
+    private void matchPool(Dungeon dungeon, TreeMap<Integer, LinkedHashMap<UUID, Ticket>> pool, long now) {
+        int min = Math.max(1, dungeon.getMinPartySize());
+        int max = Math.max(min, dungeon.getMaxPartySize());
+
+        // Full groups within a band
+        for (LinkedHashMap<UUID, Ticket> bucket : new ArrayList<>(pool.values())) {
+            // A failed launch always removes at least one ticket, so this ends
+            while (bucket.size() >= max && dungeonManager.getScheduler().hasFreeSlot(dungeon)) {
+                launch(dungeon, take(bucket.values().iterator(), max));
+            }
+        }
+
+        // Partial groups once their oldest player waited long enough, widening to the band below
+        List<Ticket> carried = new ArrayList<>();
+        int carriedBand = Integer.MIN_VALUE;
+        for (Map.Entry<Integer, LinkedHashMap<UUID, Ticket>> entry : new ArrayList<>(pool.entrySet())) {
+            if (!dungeonManager.getScheduler().hasFreeSlot(dungeon)) return;
+            int band = entry.getKey();
+            List<Ticket> candidates = new ArrayList<>();
+            if (band - carriedBand == 1) {
+                candidates.addAll(carried);
+            }
+            candidates.addAll(entry.getValue().values());
+            candidates.sort((a, b) -> Long.compare(a.joinedAt, b.joinedAt));
+
+            carried = new ArrayList<>();
+            carriedBand = band;
+            if (candidates.isEmpty() || now - candidates.get(0).joinedAt < fillTimeoutMillis) continue;
+            if (candidates.size() >= min) {
+                List<Ticket> group = candidates.subList(0, Math.min(max, candidates.size()));
+                if (launch(dungeon, new ArrayList<>(group))) continue;
+            }
+            // Only players past the timeout may be matched with the next band
+            for (Ticket ticket : entry.getValue().values()) {
+                if (now - ticket.joinedAt >= fillTimeoutMillis) carried.add(ticket);
+            }
+        }
+    }
+
+    private static List<Ticket> take(Iterator<Ticket> iterator, int count) {
+        List<Ticket> group = new ArrayList<>(count);
+        while (iterator.hasNext() && group.size() < count) {
+            group.add(iterator.next());
+        }
+        return group;
+    }
+
+    /**
+     * Starts a run for a group. Players who went offline or can no longer play are
+     * dropped from the queue; the rest keep their place if the run does not start.
+     *
+     * @return True if the run started
+     */
+    private boolean launch(Dungeon dungeon, List<Ticket> group) {
+        List<Player> members = new ArrayList<>(group.size());
+        boolean dropped = false;
+        for (Ticket ticket : group) {
+            Player player = Bukkit.getPlayer(ticket.playerId);
+            if (player == null || dungeonManager.isInDungeon(player)) {
+                dequeue(ticket.playerId);
+                dropped = true;
+            } else {
+                members.add(player);
+            }
+        }
+        if (dropped || members.size() < Math.max(1, dungeon.getMinPartySize())) return false;
+
+        for (Ticket ticket : group) {
+            dequeue(ticket.playerId);
+        }
+        if (dungeonManager.startMatchedRun(dungeon, members)) {
+            return true;
+        }
+
+        // The leader lost their key or a member became busy; everyone else queues again at the front
+        Player leader = members.get(0);
+        for (int i = group.size() - 1; i >= 1; i--) {
+            requeueFront(group.get(i));
+        }
+        leader.sendMessage("§cYou were removed from the dungeon queue.");
+        return false;
+    }
+
+    private void requeueFront(Ticket ticket) {
+        tickets.put(ticket.playerId, ticket);
+        LinkedHashMap<UUID, Ticket> bucket = pools.computeIfAbsent(ticket.dungeonId, id -> new TreeMap<>())
+                .computeIfAbsent(ticket.band, band -> new LinkedHashMap<>());
+        LinkedHashMap<UUID, Ticket> reordered = new LinkedHashMap<>();
+        reordered.put(ticket.playerId, ticket);
+        reordered.putAll(bucket);
+        bucket.clear();
+        bucket.putAll(reordered);
+    }
+
+    /**
+     * A player waiting for a group.
+     */
+    private static final class Ticket {
+        private final UUID playerId;
+        private final String dungeonId;
+        private final int band;
+        private final long joinedAt;
+
+        private Ticket(UUID playerId, String dungeonId, int band, long joinedAt) {
+            this.playerId = playerId;
+            this.dungeonId = dungeonId;
+            this.band = band;
+            this.joinedAt = joinedAt;
+        }
+    }
+}
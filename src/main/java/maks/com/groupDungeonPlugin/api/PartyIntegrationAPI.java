@@ -1,6 +1,8 @@
 package maks.com.groupDungeonPlugin.api;
 
 import maks.com.groupDungeonPlugin.gui.GUI;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -15,7 +17,6 @@ import java.util.UUID;
  */
 public class PartyIntegrationAPI {
     private static boolean initialized = false;
-    private static final int debuggingFlag = 1;
 
     /**
      * Initializes the API
@@ -24,9 +25,7 @@ public class PartyIntegrationAPI {
         Plugin plugin = Bukkit.getPluginManager().getPlugin("MyExperiencePlugin");
         if (plugin != null && plugin.isEnabled()) {
             initialized = true;
-            if (debuggingFlag == 1) {
-                Bukkit.getLogger().info("[PartyIntegrationAPI] Successfully connected to MyExperiencePlugin");
-            }
+            DebugLogger.debug(Subsystem.PARTY, () -> "Successfully connected to MyExperiencePlugin");
         } else {
             Bukkit.getLogger().warning("[PartyIntegrationAPI] MyExperiencePlugin not found or not running!");
         }
@@ -91,9 +90,7 @@ public class PartyIntegrationAPI {
         List<Player> members = getPartyMembers(player);
         for (Player member : members) {
             member.teleport(location);
-            if (debuggingFlag == 1) {
-                Bukkit.getLogger().info("[PartyIntegrationAPI] Teleported party member " + member.getName() + " to dungeon");
-            }
+            DebugLogger.debug(Subsystem.PARTY, () -> "Teleported party member " + member.getName() + " to dungeon");
         }
     }
 
@@ -1,17 +1,27 @@
 package maks.com.groupDungeonPlugin.api;
 
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
+
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Manages party integration for the dungeon plugin.
  */
 public class PartyManager {
     private final JavaPlugin plugin;
-    private static final int debuggingFlag = 1;
+
+    // Party snapshots taken during the current tick
+    private final Map<UUID, PartySnapshot> snapshots = new HashMap<>();
+    private int snapshotTick = -1;
 
     /**
      * Creates a new party manager.
@@ -22,6 +32,33 @@ public class PartyManager {
         this.plugin = plugin;
     }
 
+    /**
+     * Gets the party state of a player, resolving it through the party API at most
+     * once per tick. Later calls in the same tick return the cached snapshot.
+     * Snapshots are valid for the tick they were taken in: this plugin never
+     * changes parties itself, and a change made by the party plugin later in
+     * the same tick is seen from the next tick on.
+     *
+     * @param player The player whose party to resolve
+     * @return The party snapshot
+     */
+    public PartySnapshot getSnapshot(Player player) {
+        int tick = Bukkit.getCurrentTick();
+        if (tick != snapshotTick) {
+            snapshots.clear();
+            snapshotTick = tick;
+        }
+
+        PartySnapshot snapshot = snapshots.get(player.getUniqueId());
+        if (snapshot == null) {
+            boolean inParty = isInParty(player);
+            snapshot = new PartySnapshot(inParty, isPartyLeader(player), getPartySize(player),
+                    new ArrayList<>(getPartyMembers(player)));
+            snapshots.put(player.getUniqueId(), snapshot);
+        }
+        return snapshot;
+    }
+
     /**
      * Checks if a player is in a party.
      *
@@ -32,9 +69,7 @@ public class PartyManager {
         // Check using PartyIntegrationAPI
         boolean result = PartyIntegrationAPI.isInParty(player);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Checking if player " + player.getName() + " is in party: " + result);
-        }
+        DebugLogger.debug(Subsystem.PARTY, () -> "Checking if player " + player.getName() + " is in party: " + result);
 
         return result;
     }
@@ -49,9 +84,7 @@ public class PartyManager {
         // Check using PartyIntegrationAPI
         boolean result = PartyIntegrationAPI.isPartyLeader(player);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Checking if player " + player.getName() + " is party leader: " + result);
-        }
+        DebugLogger.debug(Subsystem.PARTY, () -> "Checking if player " + player.getName() + " is party leader: " + result);
 
         return result;
     }
@@ -66,9 +99,7 @@ public class PartyManager {
         // Get from PartyIntegrationAPI
         int size = PartyIntegrationAPI.getPartySize(player);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Getting party size for player " + player.getName() + ": " + size);
-        }
+        DebugLogger.debug(Subsystem.PARTY, () -> "Getting party size for player " + player.getName() + ": " + size);
 
         return size;
     }
@@ -83,10 +114,10 @@ public class PartyManager {
         // Get from PartyIntegrationAPI
         List<Player> members = PartyIntegrationAPI.getPartyMembers(player);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Getting party members for player " + player.getName() + ": " + members.size() + " members");
+        DebugLogger.debug(Subsystem.PARTY, () -> "Getting party members for player " + player.getName() + ": " + members.size() + " members");
+        if (DebugLogger.isTraceEnabled(Subsystem.PARTY)) {
             for (Player member : members) {
-                plugin.getLogger().info("- " + member.getName());
+                DebugLogger.trace(Subsystem.PARTY, () -> "- " + member.getName());
             }
         }
 
@@ -103,9 +134,7 @@ public class PartyManager {
         // Send using PartyIntegrationAPI
         PartyIntegrationAPI.sendMessageToParty(player, message);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Sending message to " + player.getName() + "'s party: " + message);
-        }
+        DebugLogger.debug(Subsystem.PARTY, () -> "Sending message to " + player.getName() + "'s party: " + message);
     }
 
     /**
@@ -120,10 +149,8 @@ public class PartyManager {
         // Check using PartyIntegrationAPI
         boolean result = PartyIntegrationAPI.hasValidPartySize(player, minSize, maxSize);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Checking if player " + player.getName() + "'s party has valid size (" + 
-                                   minSize + "-" + maxSize + "): " + result);
-        }
+        DebugLogger.debug(Subsystem.PARTY, () -> "Checking if player " + player.getName() + "'s party has valid size (" +
+                minSize + "-" + maxSize + "): " + result);
 
         return result;
     }
@@ -138,12 +165,10 @@ public class PartyManager {
         // Teleport using PartyIntegrationAPI
         PartyIntegrationAPI.teleportParty(player, location);
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Teleporting " + player.getName() + "'s party to location: " + 
-                                   location.getWorld().getName() + ", " + 
-                                   location.getX() + ", " + 
-                                   location.getY() + ", " + 
-                                   location.getZ());
-        }
+        DebugLogger.debug(Subsystem.PARTY, () -> "Teleporting " + player.getName() + "'s party to location: " +
+                location.getWorld().getName() + ", " +
+                location.getX() + ", " +
+                location.getY() + ", " +
+                location.getZ());
     }
 }
@@ -0,0 +1,52 @@
+package maks.com.groupDungeonPlugin.api;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Party state of a player resolved once through the party API.
+ * Snapshots are only valid for the tick they were taken in.
+ */
+public final class PartySnapshot {
+    private final boolean inParty;
+    private final boolean leader;
+    private final int size;
+    private final List<Player> members;
+
+    PartySnapshot(boolean inParty, boolean leader, int size, List<Player> members) {
+        this.inParty = inParty;
+        this.leader = leader;
+        this.size = size;
+        this.members = Collections.unmodifiableList(members);
+    }
+
+    /**
+     * @return True if the player is in a party
+     */
+    public boolean isInParty() {
+        return inParty;
+    }
+
+    /**
+     * @return True if the player leads their party (or is solo)
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * @return The party size, or 1 if the player is not in a party
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The party members, or only the player if they are not in a party
+     */
+    public List<Player> getMembers() {
+        return members;
+    }
+}
@@ -0,0 +1,180 @@
+package maks.com.groupDungeonPlugin.api;
+
+import maks.com.groupDungeonPlugin.database.DatabaseManager;
+import maks.com.groupDungeonPlugin.database.StoredRun;
+import maks.com.groupDungeonPlugin.models.DungeonRun;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind journal of running dungeons, kept in the dungeon_runs table so
+ * runs survive a restart or crash.
+ *
+ * Starts, stage advances and ends only mark a run as changed. Changes made
+ * during a tick are written together at the end of it, with the run's latest
+ * state, so several advances of one run cost a single row update. Only one
+ * batch is written at a time so batches cannot overtake each other; failed
+ * batches are retried with the next one. Only accessed from the main thread.
+ */
+public class RunJournal {
+    private final JavaPlugin plugin;
+    private final DatabaseManager databaseManager;
+
+    // Runs to write and runs to remove in the next batch
+    private final Map<UUID, DungeonRun> changedRuns = new LinkedHashMap<>();
+    private final Set<UUID> endedRuns = new LinkedHashSet<>();
+    private boolean flushScheduled;
+    // The batch being written, kept to write it again if it fails
+    private CompletableFuture<Void> inFlight;
+    private List<DungeonRun> inFlightRuns;
+    private List<UUID> inFlightDeletes;
+
+    /**
+     * Creates a journal.
+     *
+     * @param plugin The plugin instance
+     * @param databaseManager The database manager that stores the runs
+     */
+    public RunJournal(JavaPlugin plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Loads the runs that had not ended when the server stopped.
+     *
+     * @return future completed with the stored runs
+     */
+    public CompletableFuture<List<StoredRun>> load() {
+        return databaseManager.loadRunsAsync();
+    }
+
+    /**
+     * Records that a run started or advanced.
+     *
+     * @param run The run
+     */
+    public void recordChange(DungeonRun run) {
+        changedRuns.put(run.getRunId(), run);
+        scheduleFlush();
+    }
+
+    /**
+     * Records that a run ended, or that a stored run was dealt with.
+     *
+     * @param runId The run ID
+     */
+    public void recordEnd(UUID runId) {
+        changedRuns.remove(runId);
+        endedRuns.add(runId);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled || inFlight != null) return;
+        flushScheduled = true;
+        Bukkit.getScheduler().runTask(plugin, this::flush);
+    }
+
+    /**
+     * Writes all recorded changes. Waits for the batch being written to finish first.
+     */
+    private void flush() {
+        flushScheduled = false;
+        if (inFlight != null || (changedRuns.isEmpty() && endedRuns.isEmpty())) return;
+
+        List<DungeonRun> written = new ArrayList<>(changedRuns.values());
+        List<StoredRun> upserts = new ArrayList<>(written.size());
+        for (DungeonRun run : written) {
+            upserts.add(toStoredRun(run));
+        }
+        List<UUID> deletes = new ArrayList<>(endedRuns);
+        changedRuns.clear();
+        endedRuns.clear();
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> batch = databaseManager.saveRunChangesAsync(upserts, deletes);
+        inFlight = batch;
+        inFlightRuns = written;
+        inFlightDeletes = deletes;
+        batch.whenCompleteAsync((ignored, error) -> {
+            if (inFlight != batch) return;
+            clearInFlight();
+            if (error != null) {
+                requeue(written, deletes);
+                return;
+            }
+            DebugLogger.debug(Subsystem.DUNGEON, () -> "Journaled " + upserts.size() + " runs and " + deletes.size() +
+                    " ended runs in " + (System.nanoTime() - start) / 1_000_000L + " ms");
+            if (!changedRuns.isEmpty() || !endedRuns.isEmpty()) {
+                scheduleFlush();
+            }
+        }, databaseManager.mainThreadExecutor());
+    }
+
+    /**
+     * Puts the changes of a failed batch back, unless the run changed again since.
+     * Anything not touched since is written again with the next batch.
+     */
+    private void requeue(List<DungeonRun> written, List<UUID> deletes) {
+        for (UUID runId : deletes) {
+            if (!changedRuns.containsKey(runId)) endedRuns.add(runId);
+        }
+        for (DungeonRun run : written) {
+            if (!endedRuns.contains(run.getRunId())) changedRuns.putIfAbsent(run.getRunId(), run);
+        }
+    }
+
+    private void clearInFlight() {
+        inFlight = null;
+        inFlightRuns = null;
+        inFlightDeletes = null;
+    }
+
+    /**
+     * Writes the remaining changes when the plugin is disabled. Must be called
+     * before the database manager is closed, which waits for the write.
+     *
+     * The completion callback of a running batch is dropped once the plugin is
+     * disabled, so a failed batch is put back here before the final write.
+     */
+    public void close() {
+        if (inFlight != null) {
+            CompletableFuture<Void> batch = inFlight;
+            List<DungeonRun> written = inFlightRuns;
+            List<UUID> deletes = inFlightDeletes;
+            clearInFlight();
+            try {
+                batch.get(10, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                // Written again below in case it never commits; if it does commit later, its older state may win
+                plugin.getLogger().warning("Timed out waiting for the dungeon run journal");
+                requeue(written, deletes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requeue(written, deletes);
+            } catch (Exception e) {
+                requeue(written, deletes);
+            }
+        }
+        flush();
+    }
+
+    private static StoredRun toStoredRun(DungeonRun run) {
+        return new StoredRun(run.getRunId(), run.getDungeon().getId(), run.getLeaderId(), run.getMemberIds(),
+                run.getStageIndex(), run.getStartTime(), run.getPaidKey(), run.getPaidKeyBlob());
+    }
+}
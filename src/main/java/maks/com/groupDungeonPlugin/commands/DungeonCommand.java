@@ -4,6 +4,9 @@ import maks.com.groupDungeonPlugin.api.DungeonManager;
 import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.models.Dungeon;
 import maks.com.groupDungeonPlugin.models.DungeonCategory;
+import maks.com.groupDungeonPlugin.models.DungeonRun;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -12,6 +15,7 @@ import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Main plugin command.
@@ -42,6 +46,15 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
      */
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+            reload(sender);
+            return true;
+        }
+        if (args.length == 1 && args[0].equalsIgnoreCase("runs")) {
+            listRuns(sender);
+            return true;
+        }
+
         if (!(sender instanceof Player)) {
             sender.sendMessage("§cThis command can only be used by players.");
             return true;
@@ -67,6 +80,15 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
                 listCategories(player);
                 return true;
             }
+
+            if (subCommand.equals("leavequeue")) {
+                if (dungeonManager.leaveQueue(player)) {
+                    player.sendMessage("§eYou left the dungeon queue.");
+                } else {
+                    player.sendMessage("§cYou are not waiting for a dungeon or a group.");
+                }
+                return true;
+            }
             
             // Check if the argument is a category ID
             DungeonCategory category = dungeonManager.getCategory(subCommand);
@@ -101,6 +123,17 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
                 return true;
             }
             
+            if (subCommand.equals("queue")) {
+                Dungeon dungeon = dungeonManager.getDungeon(id);
+                if (dungeon != null) {
+                    dungeonManager.getMatchmaking().enqueue(player, dungeon);
+                    return true;
+                }
+                
+                player.sendMessage("§cUnknown dungeon: " + id);
+                return true;
+            }
+            
             if (subCommand.equals("preview")) {
                 Dungeon dungeon = dungeonManager.getDungeon(id);
                 if (dungeon != null) {
@@ -142,8 +175,78 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
         player.sendMessage("§e/party_dungeon category <id> §7- Open the dungeon selection GUI for a category");
         player.sendMessage("§e/party_dungeon enter <dungeon> §7- Enter a dungeon");
         player.sendMessage("§e/party_dungeon preview <dungeon> §7- Preview rewards for a dungeon");
+        player.sendMessage("§e/party_dungeon queue <dungeon> §7- Find a group for a dungeon");
+        player.sendMessage("§e/party_dungeon leavequeue §7- Stop waiting for a busy dungeon or a group");
+        if (player.hasPermission("partydungeon.admin")) {
+            player.sendMessage("§e/party_dungeon reload §7- Reload dungeons.yml");
+            player.sendMessage("§e/party_dungeon runs §7- List running dungeons");
+        }
     }
     
+    /**
+     * Reloads dungeons.yml. Running dungeons are not affected.
+     *
+     * @param sender The command sender
+     */
+    private void reload(CommandSender sender) {
+        if (!sender.hasPermission("partydungeon.admin")) {
+            sender.sendMessage("§cYou don't have permission to use this command.");
+            return;
+        }
+
+        sender.sendMessage("§eReloading dungeons.yml...");
+        dungeonManager.reloadCatalog().thenAccept(problems -> {
+            if (problems.isEmpty()) {
+                sender.sendMessage("§aReloaded " + dungeonManager.getCategories().size() + " categories and " +
+                        dungeonManager.getDungeons().size() + " dungeons.");
+                return;
+            }
+            sender.sendMessage("§cdungeons.yml was not reloaded:");
+            for (String problem : problems) {
+                sender.sendMessage("§7- " + problem);
+            }
+        });
+    }
+
+    /**
+     * Lists the running dungeons.
+     *
+     * @param sender The command sender
+     */
+    private void listRuns(CommandSender sender) {
+        if (!sender.hasPermission("partydungeon.admin")) {
+            sender.sendMessage("§cYou don't have permission to use this command.");
+            return;
+        }
+
+        int max = dungeonManager.getScheduler().getMaxActiveRuns();
+        sender.sendMessage("§6=== Running Dungeons (" + dungeonManager.getRuns().size() +
+                (max > 0 ? "/" + max : "") + ") ===");
+        for (DungeonRun run : dungeonManager.getRuns().getRuns()) {
+            List<String> names = new ArrayList<>();
+            for (UUID memberId : run.getMemberIds()) {
+                OfflinePlayer member = Bukkit.getOfflinePlayer(memberId);
+                names.add(member.getName() != null ? member.getName() : memberId.toString());
+            }
+            sender.sendMessage("§e" + run.getRunId().toString().substring(0, 8) + " §f" + run.getDungeon().getName() +
+                    " §7stage " + run.getStageIndex() + "/" + run.getDungeon().getQuestStages().size() +
+                    ", " + run.getElapsedMillis() / 60000L + " min, party: " + String.join(", ", names));
+        }
+        for (String dungeonId : dungeonManager.getScheduler().getQueuedDungeonIds()) {
+            List<String> leaders = new ArrayList<>();
+            for (UUID leaderId : dungeonManager.getScheduler().getQueue(dungeonId)) {
+                OfflinePlayer leader = Bukkit.getOfflinePlayer(leaderId);
+                leaders.add(leader.getName() != null ? leader.getName() : leaderId.toString());
+            }
+            sender.sendMessage("§7Queue for §f" + dungeonId + "§7: " + String.join(", ", leaders));
+        }
+        int searching = dungeonManager.getMatchmaking().getQueuedPlayerCount();
+        if (searching > 0) {
+            sender.sendMessage("§7Players searching for a group: §f" + searching);
+        }
+        sender.sendMessage("§7Database tasks: §f" + dungeonManager.getPersistenceStats());
+    }
+
     /**
      * Lists all dungeon categories to a player.
      *
@@ -177,6 +280,12 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
             completions.add("enter");
             completions.add("preview");
             completions.add("category");
+            completions.add("queue");
+            completions.add("leavequeue");
+            if (sender.hasPermission("partydungeon.admin")) {
+                completions.add("reload");
+                completions.add("runs");
+            }
             
             // Add category IDs
             for (DungeonCategory category : dungeonManager.getCategories().values()) {
@@ -189,7 +298,7 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
         if (args.length == 2) {
             String subCommand = args[0].toLowerCase();
             
-            if (subCommand.equals("enter") || subCommand.equals("preview")) {
+            if (subCommand.equals("enter") || subCommand.equals("preview") || subCommand.equals("queue")) {
                 // Add dungeon IDs
                 for (Dungeon dungeon : dungeonManager.getDungeons().values()) {
                     completions.add(dungeon.getId());
@@ -1,7 +1,10 @@
 package maks.com.groupDungeonPlugin.commands;
 
 import maks.com.groupDungeonPlugin.api.DungeonManager;
+import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.gui.CategorySelectionGUI;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -12,10 +15,11 @@ import org.bukkit.entity.Player;
  */
 public class DungeonGUICommand implements CommandExecutor {
     private final DungeonManager dungeonManager;
-    private static final int debuggingFlag = 1;
+    private final GUIManager guiManager;
 
-    public DungeonGUICommand(DungeonManager dungeonManager) {
+    public DungeonGUICommand(DungeonManager dungeonManager, GUIManager guiManager) {
         this.dungeonManager = dungeonManager;
+        this.guiManager = guiManager;
     }
 
     @Override
@@ -28,12 +32,10 @@ public class DungeonGUICommand implements CommandExecutor {
         Player player = (Player) sender;
 
         // Open the category selection GUI
-        CategorySelectionGUI gui = new CategorySelectionGUI(player, dungeonManager.getCategories());
+        CategorySelectionGUI gui = new CategorySelectionGUI(player, guiManager, 0);
         gui.open();
 
-        if (debuggingFlag == 1) {
-            player.getServer().getLogger().info("[Dungeons] Player " + player.getName() + " opened dungeon selection GUI");
-        }
+        DebugLogger.debug(Subsystem.COMMAND, () -> "Player " + player.getName() + " opened dungeon selection GUI");
 
         return true;
     }
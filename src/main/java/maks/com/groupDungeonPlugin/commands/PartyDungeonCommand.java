@@ -1,8 +1,11 @@
 package maks.com.groupDungeonPlugin.commands;
 
 import maks.com.groupDungeonPlugin.api.DungeonManager;
+import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.api.PartyIntegrationAPI;
 import maks.com.groupDungeonPlugin.gui.CategorySelectionGUI;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -14,10 +17,11 @@ import org.bukkit.entity.Player;
  */
 public class PartyDungeonCommand implements CommandExecutor {
     private final DungeonManager dungeonManager;
-    private static final int debuggingFlag = 1;
+    private final GUIManager guiManager;
 
-    public PartyDungeonCommand(DungeonManager dungeonManager) {
+    public PartyDungeonCommand(DungeonManager dungeonManager, GUIManager guiManager) {
         this.dungeonManager = dungeonManager;
+        this.guiManager = guiManager;
     }
 
 
@@ -44,14 +48,12 @@ public class PartyDungeonCommand implements CommandExecutor {
         }
 
         // Open the category selection GUI
-        CategorySelectionGUI gui = new CategorySelectionGUI(player, dungeonManager.getCategories());
+        CategorySelectionGUI gui = new CategorySelectionGUI(player, guiManager, 0);
         gui.open();
 
-        if (debuggingFlag == 1) {
-            player.getServer().getLogger().info("[PartyDungeon] Player " + player.getName() + 
-                                               " opened category selection GUI with " + 
-                                               dungeonManager.getCategories().size() + " categories");
-        }
+        DebugLogger.debug(Subsystem.COMMAND, () -> "Player " + player.getName() +
+                " opened category selection GUI with " +
+                dungeonManager.getCategories().size() + " categories");
 
         return true;
     }
@@ -3,6 +3,8 @@ package maks.com.groupDungeonPlugin.commands;
 import maks.com.groupDungeonPlugin.api.DungeonManager;
 import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -19,7 +21,6 @@ import java.util.Map;
 public class PreviewEditCommand implements CommandExecutor, TabCompleter {
     private final DungeonManager dungeonManager;
     private final GUIManager guiManager;
-    private static final int debuggingFlag = 1;
 
     /**
      * Creates a new preview edit command.
@@ -71,10 +72,8 @@ public class PreviewEditCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        if (debuggingFlag == 1) {
-            player.getServer().getLogger().info("[PreviewEditCommand] Player " + player.getName() +
-                                               " editing reward preview for dungeon: " + dungeon.getName());
-        }
+        DebugLogger.debug(Subsystem.COMMAND, () -> "Player " + player.getName() +
+                " editing reward preview for dungeon: " + dungeon.getName());
 
         guiManager.openPreviewEditGUI(player, dungeonId);
         return true;
@@ -2,7 +2,11 @@ package maks.com.groupDungeonPlugin.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import maks.com.groupDungeonPlugin.utils.BukkitStreamItemCodec;
 import maks.com.groupDungeonPlugin.utils.ItemSerializationUtils;
+import maks.com.groupDungeonPlugin.utils.ItemTemplateCache;
+import maks.com.groupDungeonPlugin.utils.PaperItemCodec;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -12,17 +16,63 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
- * Manages MySQL operations for preview items.
+ * Manages MySQL operations for preview items and the journal of running dungeons.
+ * All statements run on a dedicated persistence executor; callers receive
+ * {@link CompletableFuture}s and can hop back to the server thread with {@link #mainThreadExecutor()}.
  */
 public class DatabaseManager {
 
     private final JavaPlugin plugin;
     private HikariDataSource dataSource;
     private final String tablePrefix;
+    private final ItemTemplateCache itemCache;
+
+    // Async persistence
+    private final BlockingQueue<Runnable> taskQueue;
+    private final ThreadPoolExecutor persistenceExecutor;
+    private final Executor mainThreadExecutor;
+    private final CompletableFuture<Void> schemaReady;
+    // Last preview write per dungeon; the next write for the dungeon waits for it
+    private final Map<String, CompletableFuture<Void>> previewWrites = new ConcurrentHashMap<>();
+
+    // Back-pressure metrics
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+    /**
+     * A unit of work executed with a pooled connection on the persistence executor.
+     */
+    @FunctionalInterface
+    private interface SqlTask<T> {
+        T run(Connection conn) throws SQLException;
+    }
 
     /**
      * Creates and initializes the MySQL manager using configuration values.
@@ -39,7 +89,11 @@ public class DatabaseManager {
         String user = section.getString("user", "root");
         String password = section.getString("password", "");
         int poolSize = section.getInt("pool-size", 10);
+        int asyncThreads = Math.max(1, section.getInt("async-threads", 2));
+        int asyncQueueSize = Math.max(1, section.getInt("async-queue-size", 256));
         this.tablePrefix = section.getString("table-prefix", "");
+        configureItemCodec(section.getString("item-codec", "paper"));
+        this.itemCache = new ItemTemplateCache(Math.max(0, section.getInt("item-cache-size", 4096)));
 
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + dbName);
@@ -47,98 +101,442 @@ public class DatabaseManager {
         config.setPassword(password);
         config.setMaximumPoolSize(poolSize);
         config.setPoolName("GroupDungeonPool");
+        // Don't block the server thread on the first connection; the pool fills in the background
+        config.setInitializationFailTimeout(-1);
 
         this.dataSource = new HikariDataSource(config);
 
-        createTables();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.taskQueue = new ArrayBlockingQueue<>(asyncQueueSize);
+        this.persistenceExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads,
+                0L, TimeUnit.MILLISECONDS, taskQueue, runnable -> {
+                    Thread thread = new Thread(runnable, "GroupDungeon-DB-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.mainThreadExecutor = task -> {
+            if (Bukkit.isPrimaryThread()) {
+                task.run();
+            } else if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, task);
+            }
+        };
+
+        // Every later statement waits for the schema, whether or not creating it succeeded
+        this.schemaReady = enqueue("create tables", conn -> {
+            createTables(conn);
+            return null;
+        }).handle((ignored, error) -> null);
     }
 
     /**
-     * Creates required tables if they don't already exist.
+     * Selects the codec used for newly written items.
      */
-    private void createTables() {
-        String sql = "CREATE TABLE IF NOT EXISTS " + tablePrefix +
-                "preview_items (" +
+    private void configureItemCodec(String name) {
+        switch (name.toLowerCase()) {
+            case "bukkit":
+                ItemSerializationUtils.setDefaultCodec(new BukkitStreamItemCodec(false));
+                break;
+            case "bukkit-deflate":
+                ItemSerializationUtils.setDefaultCodec(new BukkitStreamItemCodec(true));
+                break;
+            case "paper":
+                ItemSerializationUtils.setDefaultCodec(new PaperItemCodec());
+                break;
+            default:
+                plugin.getLogger().warning("Unknown item-codec '" + name + "', using paper");
+                ItemSerializationUtils.setDefaultCodec(new PaperItemCodec());
+        }
+    }
+
+    /**
+     * Creates required tables if they don't already exist and upgrades the
+     * legacy text blob column to binary. Existing Base64 rows stay readable.
+     */
+    private void createTables(Connection conn) throws SQLException {
+        String table = tablePrefix + "preview_items";
+        String sql = "CREATE TABLE IF NOT EXISTS " + table + " (" +
                 "dungeon_id VARCHAR(64) NOT NULL, " +
                 "slot INT NOT NULL, " +
-                "item_blob MEDIUMTEXT NOT NULL, " +
+                "item_blob MEDIUMBLOB NOT NULL, " +
                 "PRIMARY KEY (dungeon_id, slot))";
+        String runsSql = "CREATE TABLE IF NOT EXISTS " + tablePrefix + "dungeon_runs (" +
+                "run_id CHAR(36) NOT NULL, " +
+                "dungeon_id VARCHAR(64) NOT NULL, " +
+                "leader_id CHAR(36) NOT NULL, " +
+                "member_ids TEXT NOT NULL, " +
+                "stage INT NOT NULL, " +
+                "start_time BIGINT NOT NULL, " +
+                "key_blob MEDIUMBLOB NULL, " +
+                "PRIMARY KEY (run_id))";
 
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
+        try (Statement stmt = conn.createStatement()) {
             stmt.executeUpdate(sql);
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Could not create preview_items table: " + e.getMessage());
+            stmt.executeUpdate(runsSql);
+
+            String blobType = null;
+            try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, "item_blob")) {
+                if (rs.next()) {
+                    blobType = rs.getString("TYPE_NAME");
+                }
+            }
+            if (blobType != null && blobType.toUpperCase().contains("TEXT")) {
+                stmt.executeUpdate("ALTER TABLE " + table + " MODIFY item_blob MEDIUMBLOB NOT NULL");
+                plugin.getLogger().info("Converted " + table + ".item_blob to MEDIUMBLOB");
+            }
         }
     }
 
+    // ---------------------------------------------------------------------
+    // Async API
+    // ---------------------------------------------------------------------
+
+    /**
+     * Loads the preview items of every dungeon with a single streamed query.
+     * Rows are fetched first and deserialized in parallel afterwards so the
+     * connection is returned to the pool as early as possible. The item cache
+     * is cleared first, so templates of items removed since the last load are
+     * not kept. The loaded items are shared templates and must not be modified.
+     *
+     * @return future completed with a map of dungeon id -> stored preview
+     */
+    public CompletableFuture<Map<String, StoredPreview>> loadAllPreviewItemsAsync() {
+        return submit("load all preview items", this::loadAllPreviewRows)
+                .thenApplyAsync(rows -> {
+                    itemCache.clear();
+                    return decodeRows(rows);
+                }, ForkJoinPool.commonPool());
+    }
+
     /**
-     * Loads preview items for a dungeon.
+     * Writes changed preview slots for a dungeon off the server thread.
+     * Changed slots are upserted and cleared slots deleted in a single transaction.
+     * Writes for the same dungeon are applied in the order they were requested,
+     * so an older write never overwrites a newer one.
+     * The map must not be modified after it is handed over.
      *
      * @param dungeonId id of the dungeon
-     * @return map of slot -> ItemStack
+     * @param changes   map of slot -> new ItemStack, or null for cleared slots
+     * @return future completed once the transaction is committed
      */
-    public Map<Integer, ItemStack> loadPreviewItems(String dungeonId) {
-        Map<Integer, ItemStack> result = new HashMap<>();
-        String sql = "SELECT slot, item_blob FROM " + tablePrefix + "preview_items WHERE dungeon_id = ?";
+    public CompletableFuture<Void> savePreviewChangesAsync(String dungeonId, Map<Integer, ItemStack> changes) {
+        CompletableFuture<Void> previous = previewWrites.getOrDefault(dungeonId, schemaReady);
+        CompletableFuture<Void> write = previous.handle((ignored, error) -> null)
+                .thenCompose(ignored -> submit("save preview changes for " + dungeonId, conn -> {
+                    savePreviewChanges(conn, dungeonId, changes);
+                    return null;
+                }));
+        previewWrites.put(dungeonId, write);
+        write.whenComplete((ignored, error) -> previewWrites.remove(dungeonId, write));
+        return write;
+    }
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, dungeonId);
+    /**
+     * Loads the runs that had not ended when the server stopped.
+     *
+     * @return future completed with the stored runs
+     */
+    public CompletableFuture<List<StoredRun>> loadRunsAsync() {
+        return submit("load dungeon runs", this::loadRuns);
+    }
+
+    /**
+     * Writes the state of running dungeons and removes ended ones in a single
+     * transaction. The collections must not be modified after they are handed over.
+     *
+     * @param upserts runs to insert or update
+     * @param deletes IDs of runs to remove
+     * @return future completed once the transaction is committed
+     */
+    public CompletableFuture<Void> saveRunChangesAsync(List<StoredRun> upserts, Collection<UUID> deletes) {
+        return submit("save " + upserts.size() + " dungeon runs and remove " + deletes.size(), conn -> {
+            saveRunChanges(conn, upserts, deletes);
+            return null;
+        });
+    }
+
+    /**
+     * Gets an executor that runs callbacks on the server thread.
+     * Callbacks submitted after the plugin is disabled are dropped.
+     *
+     * @return main thread executor
+     */
+    public Executor mainThreadExecutor() {
+        return mainThreadExecutor;
+    }
+
+    private <T> CompletableFuture<T> submit(String description, SqlTask<T> task) {
+        return schemaReady.thenCompose(ignored -> enqueue(description, task));
+    }
+
+    /**
+     * Queues a task on the persistence executor. When the queue is full the task is
+     * rejected instead of falling back to the calling thread, so SQL never runs on the tick.
+     */
+    private <T> CompletableFuture<T> enqueue(String description, SqlTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            persistenceExecutor.execute(() -> {
+                try (Connection conn = dataSource.getConnection()) {
+                    future.complete(task.run(conn));
+                    completedTasks.incrementAndGet();
+                } catch (Throwable t) {
+                    failedTasks.incrementAndGet();
+                    plugin.getLogger().severe("Database task failed (" + description + "): " + t.getMessage());
+                    future.completeExceptionally(t);
+                }
+            });
+            submittedTasks.incrementAndGet();
+            peakQueueDepth.accumulateAndGet(taskQueue.size(), Math::max);
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.incrementAndGet();
+            plugin.getLogger().warning("Database queue is full, rejected task: " + description);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // ---------------------------------------------------------------------
+    // Statements (persistence executor only)
+    // ---------------------------------------------------------------------
+
+    private List<PreviewRow> loadAllPreviewRows(Connection conn) throws SQLException {
+        List<PreviewRow> rows = new ArrayList<>();
+        String sql = "SELECT dungeon_id, slot, item_blob FROM " + tablePrefix + "preview_items";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Tells Connector/J to stream rows instead of buffering the whole result set
+            ps.setFetchSize(Integer.MIN_VALUE);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int slot = rs.getInt("slot");
-                    String blob = rs.getString("item_blob");
-                    ItemStack item = ItemSerializationUtils.deserializeItem(blob);
-                    if (item != null) {
-                        result.put(slot, item);
+                readRows(rs, rows);
+            }
+        }
+
+        return rows;
+    }
+
+    private static void readRows(ResultSet rs, List<PreviewRow> rows) throws SQLException {
+        while (rs.next()) {
+            rows.add(new PreviewRow(rs.getString(1), rs.getInt(2), rs.getBytes(3)));
+        }
+    }
+
+    private Map<String, StoredPreview> decodeRows(List<PreviewRow> rows) {
+        List<ItemStack> items = rows.parallelStream()
+                .map(row -> itemCache.decode(row.blob))
+                .collect(Collectors.toList());
+
+        Map<String, StoredPreview> result = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ItemStack item = items.get(i);
+            if (item != null) {
+                PreviewRow row = rows.get(i);
+                result.computeIfAbsent(row.dungeonId, id -> new StoredPreview())
+                        .put(row.slot, item, ItemSerializationUtils.isLegacyFormat(row.blob));
+            }
+        }
+        return result;
+    }
+
+    private void savePreviewChanges(Connection conn, String dungeonId, Map<Integer, ItemStack> changes) throws SQLException {
+        String upsertSql = "INSERT INTO " + tablePrefix + "preview_items (dungeon_id, slot, item_blob) VALUES (?,?,?) " +
+                "ON DUPLICATE KEY UPDATE item_blob = VALUES(item_blob)";
+        String deleteSql = "DELETE FROM " + tablePrefix + "preview_items WHERE dungeon_id = ? AND slot = ?";
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement upsert = conn.prepareStatement(upsertSql);
+             PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+
+            int upserts = 0;
+            int deletes = 0;
+            for (Map.Entry<Integer, ItemStack> entry : changes.entrySet()) {
+                if (entry.getValue() != null) {
+                    byte[] blob = ItemSerializationUtils.encodeItem(entry.getValue());
+                    if (blob == null) {
+                        // Fail the whole batch so the caller marks every slot dirty again
+                        throw new SQLException("Could not serialize preview item in slot " + entry.getKey() + " of " + dungeonId);
                     }
+                    upsert.setString(1, dungeonId);
+                    upsert.setInt(2, entry.getKey());
+                    upsert.setBytes(3, blob);
+                    upsert.addBatch();
+                    upserts++;
+                } else {
+                    delete.setString(1, dungeonId);
+                    delete.setInt(2, entry.getKey());
+                    delete.addBatch();
+                    deletes++;
                 }
             }
+            if (upserts > 0) {
+                upsert.executeBatch();
+            }
+            if (deletes > 0) {
+                delete.executeBatch();
+            }
+            conn.commit();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Error loading preview items for " + dungeonId + ": " + e.getMessage());
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private List<StoredRun> loadRuns(Connection conn) throws SQLException {
+        List<StoredRun> result = new ArrayList<>();
+        String sql = "SELECT run_id, dungeon_id, leader_id, member_ids, stage, start_time, key_blob FROM " +
+                tablePrefix + "dungeon_runs";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                try {
+                    Set<UUID> members = new LinkedHashSet<>();
+                    for (String member : rs.getString(4).split(",")) {
+                        if (!member.isEmpty()) {
+                            members.add(UUID.fromString(member));
+                        }
+                    }
+                    byte[] keyBlob = rs.getBytes(7);
+                    ItemStack key = null;
+                    if (keyBlob != null) {
+                        key = ItemSerializationUtils.decodeItem(keyBlob);
+                        if (key == null) {
+                            // Left out so the row is neither restored nor deleted, and the key stays refundable
+                            plugin.getLogger().warning("Could not read the key of dungeon run " + rs.getString(1) +
+                                    ", keeping it in the table");
+                            continue;
+                        }
+                    }
+                    result.add(new StoredRun(UUID.fromString(rs.getString(1)), rs.getString(2),
+                            UUID.fromString(rs.getString(3)), members, rs.getInt(5), rs.getLong(6), key, keyBlob));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Skipping unreadable dungeon run " + rs.getString(1) + ": " + e.getMessage());
+                }
+            }
         }
 
         return result;
     }
 
-    /**
-     * Saves preview items for a dungeon.
-     *
-     * @param dungeonId id of the dungeon
-     * @param items     map of slot -> ItemStack to save
-     */
-    public void savePreviewItems(String dungeonId, Map<Integer, ItemStack> items) {
-        String deleteSql = "DELETE FROM " + tablePrefix + "preview_items WHERE dungeon_id = ?";
-        String insertSql = "REPLACE INTO " + tablePrefix +
-                "preview_items (dungeon_id, slot, item_blob) VALUES (?,?,?)";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement delete = conn.prepareStatement(deleteSql);
-             PreparedStatement insert = conn.prepareStatement(insertSql)) {
-
-            delete.setString(1, dungeonId);
-            delete.executeUpdate();
-
-            for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
-                insert.setString(1, dungeonId);
-                insert.setInt(2, entry.getKey());
-                insert.setString(3, ItemSerializationUtils.serializeItem(entry.getValue()));
-                insert.addBatch();
+    private void saveRunChanges(Connection conn, List<StoredRun> upserts, Collection<UUID> deletes) throws SQLException {
+        String upsertSql = "INSERT INTO " + tablePrefix + "dungeon_runs " +
+                "(run_id, dungeon_id, leader_id, member_ids, stage, start_time, key_blob) VALUES (?,?,?,?,?,?,?) " +
+                "ON DUPLICATE KEY UPDATE stage = VALUES(stage)";
+        String deleteSql = "DELETE FROM " + tablePrefix + "dungeon_runs WHERE run_id = ?";
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement upsert = conn.prepareStatement(upsertSql);
+             PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+
+            for (StoredRun run : upserts) {
+                if (run.getKey() != null && run.getKeyBlob() == null) {
+                    // Writing the row without its key would make it look like a run that needs no refund
+                    throw new SQLException("Could not serialize the key of dungeon run " + run.getRunId());
+                }
+                List<String> members = new ArrayList<>(run.getMemberIds().size());
+                for (UUID member : run.getMemberIds()) {
+                    members.add(member.toString());
+                }
+                upsert.setString(1, run.getRunId().toString());
+                upsert.setString(2, run.getDungeonId());
+                upsert.setString(3, run.getLeaderId().toString());
+                upsert.setString(4, String.join(",", members));
+                upsert.setInt(5, run.getStageIndex());
+                upsert.setLong(6, run.getStartTime());
+                upsert.setBytes(7, run.getKeyBlob());
+                upsert.addBatch();
+            }
+            for (UUID runId : deletes) {
+                delete.setString(1, runId.toString());
+                delete.addBatch();
+            }
+            if (!upserts.isEmpty()) {
+                upsert.executeBatch();
             }
-            insert.executeBatch();
+            if (!deletes.isEmpty()) {
+                delete.executeBatch();
+            }
+            conn.commit();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Error saving preview items for " + dungeonId + ": " + e.getMessage());
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Raw preview_items row, kept until the blob is deserialized.
+     */
+    private static final class PreviewRow {
+        private final String dungeonId;
+        private final int slot;
+        private final byte[] blob;
+
+        private PreviewRow(String dungeonId, int slot, byte[] blob) {
+            this.dungeonId = dungeonId;
+            this.slot = slot;
+            this.blob = blob;
         }
     }
 
+    // ---------------------------------------------------------------------
+    // Metrics
+    // ---------------------------------------------------------------------
+
     /**
-     * Closes the datasource.
+     * Gets the cache of decoded preview items.
+     *
+     * @return the item template cache
+     */
+    public ItemTemplateCache getItemCache() {
+        return itemCache;
+    }
+
+    /**
+     * @return short human readable summary of the persistence executor
+     */
+    public String getPersistenceStats() {
+        return "submitted=" + submittedTasks.get() +
+                ", completed=" + completedTasks.get() +
+                ", failed=" + failedTasks.get() +
+                ", rejected=" + rejectedTasks.get() +
+                ", queued=" + taskQueue.size() +
+                ", peakQueued=" + peakQueueDepth.get();
+    }
+
+    /**
+     * Drains pending writes and closes the datasource.
      */
     public void close() {
+        // Queued preview writes are only handed to the executor once the previous one is done
+        try {
+            CompletableFuture.allOf(previewWrites.values().toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Timed out waiting for queued preview writes");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // Already logged by the failed task
+        }
+
+        persistenceExecutor.shutdown();
+        try {
+            if (!persistenceExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for pending database tasks: " + getPersistenceStats());
+                persistenceExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            persistenceExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
     }
 }
-
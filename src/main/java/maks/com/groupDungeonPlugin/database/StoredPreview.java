@@ -0,0 +1,42 @@
+package maks.com.groupDungeonPlugin.database;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Preview items of a single dungeon as loaded from the database.
+ */
+public final class StoredPreview {
+    private final Map<Integer, ItemStack> items = new HashMap<>();
+    private final Set<Integer> legacySlots = new HashSet<>();
+
+    void put(int slot, ItemStack item, boolean legacy) {
+        items.put(slot, item);
+        if (legacy) {
+            legacySlots.add(slot);
+        }
+    }
+
+    /**
+     * Gets the loaded items.
+     *
+     * @return map of slot -> ItemStack
+     */
+    public Map<Integer, ItemStack> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the slots still stored in the legacy Base64 format.
+     * They should be rewritten the next time the dungeon's preview is saved.
+     *
+     * @return set of slots
+     */
+    public Set<Integer> getLegacySlots() {
+        return legacySlots;
+    }
+}
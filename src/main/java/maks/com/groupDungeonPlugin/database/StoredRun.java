@@ -0,0 +1,88 @@
+package maks.com.groupDungeonPlugin.database;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A row of the dungeon_runs table: the state of a run that has not ended yet.
+ */
+public final class StoredRun {
+    private final UUID runId;
+    private final String dungeonId;
+    private final UUID leaderId;
+    private final Set<UUID> memberIds;
+    private final int stageIndex;
+    private final long startTime;
+    private final ItemStack key;
+    private final byte[] keyBlob;
+
+    /**
+     * Creates a stored run.
+     *
+     * @param runId The run ID
+     * @param dungeonId The dungeon ID
+     * @param leaderId The party leader
+     * @param memberIds The party members, including the leader
+     * @param stageIndex The index of the next stage
+     * @param startTime When the run started, in epoch milliseconds
+     * @param key The key the leader paid, or null if the dungeon needs none
+     * @param keyBlob The serialized key, or null if the dungeon needs none or it could not be serialized
+     */
+    public StoredRun(UUID runId, String dungeonId, UUID leaderId, Set<UUID> memberIds, int stageIndex,
+                     long startTime, ItemStack key, byte[] keyBlob) {
+        this.runId = runId;
+        this.dungeonId = dungeonId;
+        this.leaderId = leaderId;
+        this.memberIds = Collections.unmodifiableSet(new LinkedHashSet<>(memberIds));
+        this.stageIndex = stageIndex;
+        this.startTime = startTime;
+        this.key = key;
+        this.keyBlob = keyBlob;
+    }
+
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public String getDungeonId() {
+        return dungeonId;
+    }
+
+    public UUID getLeaderId() {
+        return leaderId;
+    }
+
+    public Set<UUID> getMemberIds() {
+        return memberIds;
+    }
+
+    public int getStageIndex() {
+        return stageIndex;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the key the leader paid to start the run.
+     *
+     * @return The key, or null if the dungeon needs none
+     */
+    public ItemStack getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the key as stored in the key_blob column.
+     *
+     * @return The serialized key, or null if the dungeon needs none or it could not be serialized
+     */
+    public byte[] getKeyBlob() {
+        return keyBlob;
+    }
+}
@@ -1,53 +1,92 @@
 package maks.com.groupDungeonPlugin.gui;
 
+import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.models.DungeonCategory;
-import org.bukkit.Bukkit;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * GUI for selecting a dungeon category.
  * This is the main menu that players see when they use the /party_dungeon command.
  */
 public class CategorySelectionGUI extends GUI {
-    private final Map<String, DungeonCategory> categories;
-    private final Map<Integer, DungeonCategory> slotToCategoryMap = new HashMap<>();
-    private static final int debuggingFlag = 1;
+    private final GUIManager guiManager;
+    private final MenuTemplate<DungeonCategory> template;
 
     /**
      * Creates a new category selection GUI.
      *
      * @param player The player viewing the GUI
-     * @param categories The available dungeon categories
+     * @param guiManager The GUI manager providing menu templates
+     * @param page The zero-based page to show
      */
-    public CategorySelectionGUI(Player player, Map<String, DungeonCategory> categories) {
-        super(player, "§8Select Dungeon Category", 54);
-        this.categories = categories;
+    public CategorySelectionGUI(Player player, GUIManager guiManager, int page) {
+        this(player, guiManager, guiManager.getTemplates().getCategoryMenu(page));
+    }
+
+    private CategorySelectionGUI(Player player, GUIManager guiManager, MenuTemplate<DungeonCategory> template) {
+        super(player, template.getTitle(), template.getSize());
+        this.guiManager = guiManager;
+        this.template = template;
+
+        for (int slot = 0; slot < template.getSize(); slot++) {
+            DungeonCategory category = template.getBinding(slot);
+            if (category != null) {
+                setHandler(slot, event -> openCategory(category));
+            }
+        }
+
+        MenuLayout layout = guiManager.getTemplates().getCategoryLayout();
+        if (template.hasPreviousPage()) {
+            setHandler(layout.getPreviousPageSlot(), event -> openPage(template.getPage() - 1));
+        }
+        if (template.hasNextPage()) {
+            setHandler(layout.getNextPageSlot(), event -> openPage(template.getPage() + 1));
+        }
     }
 
     @Override
     protected void initializeItems() {
-        // Clear any existing items
-        inventory.clear();
-        slotToCategoryMap.clear();
-
-        // Add decorative border using glass panes
-        ItemStack borderItem = createBorderItem();
-        for (int i = 0; i < 9; i++) {
-            inventory.setItem(i, borderItem); // Top row
-            inventory.setItem(45 + i, borderItem); // Bottom row
-        }
-        for (int i = 0; i < 6; i++) {
-            inventory.setItem(i * 9, borderItem); // Left column
-            inventory.setItem(i * 9 + 8, borderItem); // Right column
+        template.applyTo(inventory);
+    }
+
+    /**
+     * Renders one page of the category selection menu.
+     * Categories are shown in the order they appear in dungeons.yml.
+     *
+     * @param layout The menu layout
+     * @param categories The available dungeon categories, in display order
+     * @param page The zero-based page
+     * @return The rendered template
+     */
+    static MenuTemplate<DungeonCategory> renderTemplate(MenuLayout layout, List<DungeonCategory> categories, int page) {
+        int[] slots = layout.getSlots();
+        int pageCount = Math.max(1, (categories.size() + slots.length - 1) / slots.length);
+        page = Math.max(0, Math.min(page, pageCount - 1));
+
+        MenuTemplate.Builder<DungeonCategory> menu = MenuTemplate.<DungeonCategory>builder(layout.getTitle(), layout.getSize())
+                .page(page, pageCount);
+        int size = layout.getSize();
+        int rows = size / 9;
+
+        // Add decorative border using glass panes, if the menu has room inside it
+        if (rows >= 3) {
+            ItemStack borderItem = createBorderItem();
+            for (int i = 0; i < 9; i++) {
+                menu.setItem(i, borderItem); // Top row
+                menu.setItem(size - 9 + i, borderItem); // Bottom row
+            }
+            for (int i = 0; i < rows; i++) {
+                menu.setItem(i * 9, borderItem); // Left column
+                menu.setItem(i * 9 + 8, borderItem); // Right column
+            }
         }
 
         // Add header information
@@ -61,7 +100,9 @@ public class CategorySelectionGUI extends GUI {
 
         headerMeta.setLore(headerLore);
         headerItem.setItemMeta(headerMeta);
-        setItem(4, headerItem);
+        if (layout.getHeaderSlot() >= 0) {
+            menu.setItem(layout.getHeaderSlot(), headerItem);
+        }
 
         // Add category items
         if (categories.isEmpty()) {
@@ -69,47 +110,33 @@ public class CategorySelectionGUI extends GUI {
             ItemMeta noMeta = noItem.getItemMeta();
             noMeta.setDisplayName("§cNo categories available");
             noItem.setItemMeta(noMeta);
-            setItem(22, noItem);
-            return;
+            if (layout.getEmptySlot() >= 0) {
+                menu.setItem(layout.getEmptySlot(), noItem);
+            }
+            return menu.build();
         }
 
-        // Ordered category IDs according to the file
-        String[] orderedCategoryIds = {
-            "mythology",
-            "ancient",
-            "fantasy"
-        };
-        // Place categories in the center area in a visually appealing way
-        // Using vertical arrangement with spaces between categories
-        int[] slots = {19, 22, 25};
+        int first = page * slots.length;
+        for (int i = 0; i < slots.length && first + i < categories.size(); i++) {
+            DungeonCategory category = categories.get(first + i);
+            int slot = slots[i];
 
-        for (int i = 0; i < orderedCategoryIds.length; i++) {
-            String categoryId = orderedCategoryIds[i];
-            DungeonCategory category = categories.get(categoryId);
+            ItemStack categoryItem = new ItemStack(category.getIcon());
+            ItemMeta categoryMeta = categoryItem.getItemMeta();
+            categoryMeta.setDisplayName("§6" + category.getName());
 
-            if (category != null) {
-                int slot = slots[i];
-
-                ItemStack categoryItem = new ItemStack(category.getIcon());
-                ItemMeta categoryMeta = categoryItem.getItemMeta();
-                categoryMeta.setDisplayName("§6" + category.getName());
-
-                List<String> lore = new ArrayList<>();
-                lore.add("§7" + category.getDescription());
-                lore.add("");
-                lore.add("§e» Click to view dungeons «");
+            List<String> lore = new ArrayList<>();
+            lore.add("§7" + category.getDescription());
+            lore.add("");
+            lore.add("§e» Click to view dungeons «");
 
-                categoryMeta.setLore(lore);
-                categoryItem.setItemMeta(categoryMeta);
+            categoryMeta.setLore(lore);
+            categoryItem.setItemMeta(categoryMeta);
 
-                setItem(slot, categoryItem);
-                slotToCategoryMap.put(slot, category);
+            menu.bind(slot, categoryItem, category);
 
-                if (debuggingFlag == 1) {
-                    Bukkit.getLogger().info("[CategorySelectionGUI] Added category " + 
-                                           category.getName() + " to slot " + slot);
-                }
-            }
+            DebugLogger.trace(Subsystem.GUI, () -> "Added category " +
+                    category.getName() + " to slot " + slot);
         }
 
         // Add informational footer
@@ -125,7 +152,16 @@ public class CategorySelectionGUI extends GUI {
         infoMeta.setLore(infoLore);
         infoItem.setItemMeta(infoMeta);
 
-        setItem(49, infoItem);
+        menu.setItem(layout.getInfoSlot(), infoItem);
+
+        // Add page navigation
+        if (page > 0) {
+            menu.setItem(layout.getPreviousPageSlot(), createPageButton("§ePrevious Page", page - 1));
+        }
+        if (page + 1 < pageCount) {
+            menu.setItem(layout.getNextPageSlot(), createPageButton("§eNext Page", page + 1));
+        }
+        return menu.build();
     }
 
     /**
@@ -133,7 +169,7 @@ public class CategorySelectionGUI extends GUI {
      *
      * @return The border item
      */
-    private ItemStack createBorderItem() {
+    private static ItemStack createBorderItem() {
         ItemStack item = new ItemStack(Material.LIGHT_BLUE_STAINED_GLASS_PANE);
         ItemMeta meta = item.getItemMeta();
         meta.setDisplayName(" ");
@@ -142,35 +178,25 @@ public class CategorySelectionGUI extends GUI {
     }
 
     /**
-     * Creates a background item (white stained glass pane).
+     * Opens another page of the category selection.
      *
-     * @return The background item
+     * @param page The zero-based page
      */
-    private ItemStack createBackgroundItem() {
-        ItemStack item = new ItemStack(Material.WHITE_STAINED_GLASS_PANE);
-        ItemMeta meta = item.getItemMeta();
-        meta.setDisplayName(" ");
-        item.setItemMeta(meta);
-        return item;
+    private void openPage(int page) {
+        new CategorySelectionGUI(player, guiManager, page).open();
     }
 
-    @Override
-    public void handleClick(InventoryClickEvent event) {
-        event.setCancelled(true);
-
-        int slot = event.getSlot();
-
-        DungeonCategory category = slotToCategoryMap.get(slot);
-        if (category != null) {
-            // Open the dungeon selection GUI for this category
-            player.closeInventory();
-            DungeonSelectionGUI dungeonGUI = new DungeonSelectionGUI(player, category);
-            dungeonGUI.open();
+    /**
+     * Opens the dungeon selection GUI for a category.
+     *
+     * @param category The selected category
+     */
+    private void openCategory(DungeonCategory category) {
+        player.closeInventory();
+        DungeonSelectionGUI dungeonGUI = new DungeonSelectionGUI(player, category, guiManager, 0);
+        dungeonGUI.open();
 
-            if (debuggingFlag == 1) {
-                Bukkit.getLogger().info("[CategorySelectionGUI] Player " + player.getName() + 
-                                       " selected category: " + category.getName());
-            }
-        }
+        DebugLogger.debug(Subsystem.GUI, () -> "Player " + player.getName() +
+                " selected category: " + category.getName());
     }
 }
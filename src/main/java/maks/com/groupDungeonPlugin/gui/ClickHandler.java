@@ -0,0 +1,17 @@
+package maks.com.groupDungeonPlugin.gui;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+/**
+ * Action run when a player clicks a slot of a {@link GUI}.
+ */
+@FunctionalInterface
+public interface ClickHandler {
+
+    /**
+     * Handles a click on the slot this handler is registered for.
+     *
+     * @param event The click event
+     */
+    void onClick(InventoryClickEvent event);
+}
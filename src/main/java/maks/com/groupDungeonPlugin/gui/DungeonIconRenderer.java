@@ -0,0 +1,123 @@
+package maks.com.groupDungeonPlugin.gui;
+
+import maks.com.groupDungeonPlugin.api.DungeonManager;
+import maks.com.groupDungeonPlugin.api.PartySnapshot;
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Overlays per-player entry requirements onto the shared dungeon icons.
+ *
+ * Each dungeon is reduced to a small requirement mask for the viewing player.
+ * When every requirement is met the template icon is left untouched; otherwise
+ * the icon variant for that mask is rendered once, cached, and written over the
+ * template slot. Only the main thread uses this class.
+ */
+public class DungeonIconRenderer {
+    public static final int LEVEL_MET = 1;
+    public static final int PARTY_SIZE_MET = 1 << 1;
+    public static final int KEY_OWNED = 1 << 2;
+    public static final int READY = 1 << 3;
+    public static final int ALL_MET = LEVEL_MET | PARTY_SIZE_MET | KEY_OWNED | READY;
+
+    private final DungeonManager dungeonManager;
+    private final Map<String, ItemStack[]> variants = new HashMap<>();
+    private final Map<String, String> keyTokens = new HashMap<>();
+
+    /**
+     * Creates an icon renderer.
+     *
+     * @param dungeonManager The dungeon manager used to read player state
+     */
+    public DungeonIconRenderer(DungeonManager dungeonManager) {
+        this.dungeonManager = dungeonManager;
+    }
+
+    /**
+     * Writes personalized icons over the template contents of an inventory.
+     * The template must already have been applied to the inventory.
+     *
+     * @param player The viewing player
+     * @param template The dungeon menu template
+     * @param inventory The player's inventory view
+     */
+    public void overlay(Player player, MenuTemplate<Dungeon> template, Inventory inventory) {
+        // Player state is read once per open, the key check is a single inventory pass
+        int level = dungeonManager.getPlayerLevel(player);
+        PartySnapshot party = dungeonManager.getPartyManager().getSnapshot(player);
+        boolean ready = !dungeonManager.isEntryBlocked(player);
+        Set<String> ownedKeys = dungeonManager.collectKeyTokens(player);
+
+        for (int slot = 0; slot < template.getSize(); slot++) {
+            Dungeon dungeon = template.getBinding(slot);
+            if (dungeon == null) continue;
+
+            int mask = 0;
+            if (level >= dungeon.getRequiredLevel()) mask |= LEVEL_MET;
+            if (party.isInParty() && party.getSize() >= dungeon.getMinPartySize()
+                    && party.getSize() <= dungeon.getMaxPartySize()) mask |= PARTY_SIZE_MET;
+            if (!dungeon.requiresKey() || ownedKeys.contains(getKeyToken(dungeon))) mask |= KEY_OWNED;
+            if (ready) mask |= READY;
+
+            if (mask != ALL_MET) {
+                inventory.setItem(slot, getVariant(dungeon, template.getItem(slot), mask));
+            }
+        }
+    }
+
+    private String getKeyToken(Dungeon dungeon) {
+        return keyTokens.computeIfAbsent(dungeon.getId(), id -> dungeonManager.getKeyToken(dungeon));
+    }
+
+    private ItemStack getVariant(Dungeon dungeon, ItemStack base, int mask) {
+        ItemStack[] byMask = variants.computeIfAbsent(dungeon.getId(), id -> new ItemStack[ALL_MET + 1]);
+        ItemStack variant = byMask[mask];
+        if (variant == null) {
+            variant = renderVariant(dungeon, base, mask);
+            byMask[mask] = variant;
+        }
+        return variant;
+    }
+
+    private ItemStack renderVariant(Dungeon dungeon, ItemStack base, int mask) {
+        ItemStack icon = base.clone();
+        ItemMeta meta = icon.getItemMeta();
+        List<String> lore = meta.hasLore() ? new ArrayList<>(meta.getLore()) : new ArrayList<>();
+
+        lore.add("");
+        lore.add("§cYou cannot enter this dungeon:");
+        if ((mask & LEVEL_MET) == 0) {
+            lore.add("§c✘ Requires level " + dungeon.getRequiredLevel() + "+");
+        }
+        if ((mask & PARTY_SIZE_MET) == 0) {
+            lore.add("§c✘ Requires a party of " + dungeon.getMinPartySize() + "-" + dungeon.getMaxPartySize());
+        }
+        if ((mask & KEY_OWNED) == 0) {
+            lore.add("§c✘ Missing key: " + dungeon.getKeyDisplayName().replace("&", "§"));
+        }
+        if ((mask & READY) == 0) {
+            lore.add("§c✘ You are in a dungeon or entered one moments ago");
+        }
+
+        meta.setLore(lore);
+        icon.setItemMeta(meta);
+        return icon;
+    }
+
+    /**
+     * Drops all cached icon variants.
+     */
+    public void invalidate() {
+        variants.clear();
+        keyTokens.clear();
+    }
+}
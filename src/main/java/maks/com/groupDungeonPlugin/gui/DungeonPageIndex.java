@@ -0,0 +1,57 @@
+package maks.com.groupDungeonPlugin.gui;
+
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.DungeonCategory;
+import org.bukkit.Bukkit;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page layout of one category's dungeons, built once so rendering a page only
+ * touches the dungeons shown on it.
+ */
+public final class DungeonPageIndex {
+    private final Map<Integer, List<Dungeon>> dungeonsByTier;
+    private final int pageCount;
+
+    /**
+     * Lays out the dungeons of a category.
+     *
+     * @param layout The dungeon menu layout
+     * @param category The category
+     * @param byTier The category's dungeons grouped by tier, as indexed by the catalog
+     */
+    public DungeonPageIndex(MenuLayout layout, DungeonCategory category, Map<Integer, List<Dungeon>> byTier) {
+
+        int pages = 1;
+        for (Map.Entry<Integer, List<Dungeon>> entry : byTier.entrySet()) {
+            MenuLayout.TierLayout tierLayout = layout.getTier(entry.getKey());
+            if (tierLayout == null || tierLayout.getSlots().length == 0) {
+                Bukkit.getLogger().warning("[DungeonSelectionGUI] No GUI slots configured for tier " + entry.getKey() +
+                        ", " + entry.getValue().size() + " dungeons in category " + category.getId() + " are hidden");
+                continue;
+            }
+            int slotsPerPage = tierLayout.getSlots().length;
+            pages = Math.max(pages, (entry.getValue().size() + slotsPerPage - 1) / slotsPerPage);
+        }
+        this.dungeonsByTier = byTier;
+        this.pageCount = pages;
+    }
+
+    /**
+     * Gets the dungeons of a tier in configuration order.
+     *
+     * @param tier The tier
+     * @return The dungeons, empty if the tier has none
+     */
+    public List<Dungeon> getDungeons(int tier) {
+        List<Dungeon> dungeons = dungeonsByTier.get(tier);
+        return dungeons != null ? dungeons : Collections.emptyList();
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+}
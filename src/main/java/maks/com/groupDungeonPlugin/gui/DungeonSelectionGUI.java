@@ -1,11 +1,11 @@
 package maks.com.groupDungeonPlugin.gui;
 
-import maks.com.groupDungeonPlugin.GroupDungeonPlugin;
 import maks.com.groupDungeonPlugin.api.DungeonManager;
 import maks.com.groupDungeonPlugin.api.GUIManager;
 import maks.com.groupDungeonPlugin.models.Dungeon;
 import maks.com.groupDungeonPlugin.models.DungeonCategory;
-import org.bukkit.Bukkit;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
@@ -14,40 +14,85 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * GUI for selecting a dungeon from a category.
  */
 public class DungeonSelectionGUI extends GUI {
     private final DungeonCategory category;
-    private final Map<Integer, Dungeon> slotToDungeonMap = new HashMap<>();
-    private static final int debuggingFlag = 1;
+    private final MenuTemplate<Dungeon> template;
+    private final DungeonIconRenderer iconRenderer;
+    private final GUIManager guiManager;
+    private final DungeonManager dungeonManager;
 
     /**
      * Creates a new dungeon selection GUI showing dungeons from a specific category.
      * 
      * @param player The player viewing the GUI
      * @param category The dungeon category
+     * @param guiManager The GUI manager providing menu templates
+     * @param page The zero-based page to show
      */
-    public DungeonSelectionGUI(Player player, DungeonCategory category) {
-        super(player, "§8Dungeons - " + category.getName(), 54);
+    public DungeonSelectionGUI(Player player, DungeonCategory category, GUIManager guiManager, int page) {
+        this(player, category, guiManager, guiManager.getTemplates().getDungeonMenu(category, page));
+    }
+
+    private DungeonSelectionGUI(Player player, DungeonCategory category, GUIManager guiManager,
+                                MenuTemplate<Dungeon> template) {
+        super(player, template.getTitle(), template.getSize());
         this.category = category;
+        this.template = template;
+        this.iconRenderer = guiManager.getTemplates().getIconRenderer();
+        this.guiManager = guiManager;
+        this.dungeonManager = guiManager.getDungeonManager();
+
+        MenuLayout layout = guiManager.getTemplates().getDungeonLayout();
+        if (layout.getBackSlot() >= 0) {
+            setHandler(layout.getBackSlot(), event -> back());
+        }
+        if (template.hasPreviousPage()) {
+            setHandler(layout.getPreviousPageSlot(), event -> openPage(template.getPage() - 1));
+        }
+        if (template.hasNextPage()) {
+            setHandler(layout.getNextPageSlot(), event -> openPage(template.getPage() + 1));
+        }
+        for (int slot = 0; slot < template.getSize(); slot++) {
+            Dungeon dungeon = template.getBinding(slot);
+            if (dungeon != null) {
+                setHandler(slot, event -> clickDungeon(event, dungeon));
+            }
+        }
     }
 
     @Override
     protected void initializeItems() {
-        // Clear any existing items
-        inventory.clear();
-        slotToDungeonMap.clear();
+        template.applyTo(inventory);
+        iconRenderer.overlay(player, template, inventory);
+    }
+
+    /**
+     * Renders one page of the dungeon selection menu for a category.
+     * Each tier shows the dungeons of the page in its own slots, so the page
+     * count is set by the tier with the most dungeons per slot.
+     *
+     * @param layout The menu layout
+     * @param category The dungeon category
+     * @param index The category's dungeons grouped by tier
+     * @param page The zero-based page
+     * @return The rendered template
+     */
+    static MenuTemplate<Dungeon> renderTemplate(MenuLayout layout, DungeonCategory category, DungeonPageIndex index,
+                                                int page) {
+        int pageCount = index.getPageCount();
+        page = Math.max(0, Math.min(page, pageCount - 1));
+
+        String title = layout.getTitle().replace("{category}", category.getName());
+        MenuTemplate.Builder<Dungeon> menu = MenuTemplate.<Dungeon>builder(title, layout.getSize())
+                .page(page, pageCount);
 
         // Add background glass panes
-        ItemStack backgroundItem = createBackgroundItem();
-        for (int i = 0; i < inventory.getSize(); i++) {
-            inventory.setItem(i, backgroundItem);
-        }
+        menu.fill(createBackgroundItem());
 
         // Add category information
         ItemStack categoryItem = new ItemStack(category.getIcon());
@@ -64,57 +109,15 @@ public class DungeonSelectionGUI extends GUI {
         categoryMeta.setLore(categoryLore);
         categoryItem.setItemMeta(categoryMeta);
 
-        setItem(4, categoryItem);
-
-        // Add dungeons
-        List<Dungeon> dungeons = category.getDungeons();
-
-        // Arrange dungeons by tier
-        int[] tier1Slots = {19, 20, 21};
-        int[] tier2Slots = {22, 23, 24, 25};
-        int[] tier3Slots = {28, 29, 30, 31};
-        int[] tier4Slots = {32, 33, 34};
-        int[] tier5Slots = {37, 38, 39, 40, 41, 42, 43};
-
-        // Add tier labels
-        addTierLabel(10, "§fTier 1", "§7Beginner");
-        addTierLabel(16, "§aTier 2", "§7Intermediate");
-        addTierLabel(27, "§9Tier 3", "§7Advanced");
-        addTierLabel(35, "§5Tier 4", "§7Expert");
-        addTierLabel(46, "§6Tier 5", "§7Master");
-
-        Map<Integer, List<Dungeon>> dungeonsByTier = new HashMap<>();
-        for (Dungeon dungeon : dungeons) {
-            int tier = dungeon.getTier();
-            if (!dungeonsByTier.containsKey(tier)) {
-                dungeonsByTier.put(tier, new ArrayList<>());
-            }
-            dungeonsByTier.get(tier).add(dungeon);
-        }
-
-        // Add tier 1 dungeons
-        if (dungeonsByTier.containsKey(1)) {
-            addDungeonsToSlots(dungeonsByTier.get(1), tier1Slots);
-        }
-
-        // Add tier 2 dungeons
-        if (dungeonsByTier.containsKey(2)) {
-            addDungeonsToSlots(dungeonsByTier.get(2), tier2Slots);
-        }
-
-        // Add tier 3 dungeons
-        if (dungeonsByTier.containsKey(3)) {
-            addDungeonsToSlots(dungeonsByTier.get(3), tier3Slots);
-        }
-
-        // Add tier 4 dungeons
-        if (dungeonsByTier.containsKey(4)) {
-            addDungeonsToSlots(dungeonsByTier.get(4), tier4Slots);
-        }
+        menu.setItem(layout.getInfoSlot(), categoryItem);
 
-        // Add tier 5 dungeons
-        if (dungeonsByTier.containsKey(5)) {
-            addDungeonsToSlots(dungeonsByTier.get(5), tier5Slots);
+        // Add tier labels and the dungeons of this page
+        for (MenuLayout.TierLayout tierLayout : layout.getTiers()) {
+            if (tierLayout.getLabelSlot() >= 0) {
+                addTierLabel(menu, tierLayout.getLabelSlot(), tierLayout.getName(), tierLayout.getDescription());
+            }
+            addDungeonsToSlots(menu, index.getDungeons(tierLayout.getTier()), tierLayout.getSlots(),
+                    page * tierLayout.getSlots().length);
         }
 
         // Add back button
@@ -123,17 +126,29 @@ public class DungeonSelectionGUI extends GUI {
         backMeta.setDisplayName("§cBack to Categories");
         back.setItemMeta(backMeta);
 
-        setItem(49, back);
+        if (layout.getBackSlot() >= 0) {
+            menu.setItem(layout.getBackSlot(), back);
+        }
+
+        // Add page navigation
+        if (page > 0) {
+            menu.setItem(layout.getPreviousPageSlot(), createPageButton("§ePrevious Page", page - 1));
+        }
+        if (page + 1 < pageCount) {
+            menu.setItem(layout.getNextPageSlot(), createPageButton("§eNext Page", page + 1));
+        }
+        return menu.build();
     }
 
     /**
-     * Adds a tier label to the GUI.
+     * Adds a tier label to the menu.
      *
+     * @param menu The menu being rendered
      * @param slot The slot to add the label to
      * @param name The name of the tier
      * @param description The description of the tier
      */
-    private void addTierLabel(int slot, String name, String description) {
+    private static void addTierLabel(MenuTemplate.Builder<Dungeon> menu, int slot, String name, String description) {
         ItemStack item = new ItemStack(Material.PAPER);
         ItemMeta meta = item.getItemMeta();
         meta.setDisplayName(name);
@@ -144,21 +159,20 @@ public class DungeonSelectionGUI extends GUI {
         meta.setLore(lore);
         item.setItemMeta(meta);
 
-        setItem(slot, item);
+        menu.setItem(slot, item);
     }
 
     /**
      * Adds dungeons to the specified slots.
      *
+     * @param menu The menu being rendered
      * @param dungeons The dungeons to add
      * @param slots The slots to add the dungeons to
+     * @param offset The index of the first dungeon to add
      */
-    private void addDungeonsToSlots(List<Dungeon> dungeons, int[] slots) {
-        int index = 0;
-        for (Dungeon dungeon : dungeons) {
-            if (index >= slots.length) break;
-
-            // Add space between dungeons for better visual separation
+    private static void addDungeonsToSlots(MenuTemplate.Builder<Dungeon> menu, List<Dungeon> dungeons, int[] slots, int offset) {
+        for (int index = 0; index < slots.length && offset + index < dungeons.size(); index++) {
+            Dungeon dungeon = dungeons.get(offset + index);
             int slot = slots[index];
 
             ItemStack icon = new ItemStack(dungeon.getIcon());
@@ -184,10 +198,7 @@ public class DungeonSelectionGUI extends GUI {
             iconMeta.setLore(lore);
             icon.setItemMeta(iconMeta);
 
-            setItem(slot, icon);
-            slotToDungeonMap.put(slot, dungeon);
-
-            index++;
+            menu.bind(slot, icon, dungeon);
         }
     }
 
@@ -196,7 +207,7 @@ public class DungeonSelectionGUI extends GUI {
      *
      * @return The background item
      */
-    private ItemStack createBackgroundItem() {
+    private static ItemStack createBackgroundItem() {
         ItemStack item = new ItemStack(Material.WHITE_STAINED_GLASS_PANE);
         ItemMeta meta = item.getItemMeta();
         meta.setDisplayName(" ");
@@ -204,64 +215,50 @@ public class DungeonSelectionGUI extends GUI {
         return item;
     }
 
-    @Override
-    public void handleClick(InventoryClickEvent event) {
-        event.setCancelled(true);
+    /**
+     * Returns to the category selection.
+     */
+    private void back() {
+        player.closeInventory();
+        guiManager.openCategoryGUI(player);
 
-        int slot = event.getSlot();
+        DebugLogger.debug(Subsystem.GUI, () -> "Player " + player.getName() + " returned to category selection");
+    }
 
-        // Back button
-        if (slot == 49) {
-            player.closeInventory();
+    /**
+     * Opens another page of this category.
+     *
+     * @param page The zero-based page
+     */
+    private void openPage(int page) {
+        new DungeonSelectionGUI(player, category, guiManager, page).open();
+    }
 
-            // Get the plugin instance and open category GUI
-            GroupDungeonPlugin plugin = (GroupDungeonPlugin) Bukkit.getPluginManager().getPlugin("GroupDungeonPlugin");
-            if (plugin != null) {
-                plugin.getGuiManager().openCategoryGUI(player);
+    /**
+     * Handles a click on a dungeon icon.
+     *
+     * @param event The click event
+     * @param dungeon The dungeon shown in the slot
+     */
+    private void clickDungeon(InventoryClickEvent event, Dungeon dungeon) {
+        // Shift + Right Click to view reward preview
+        if (event.getClick() == ClickType.SHIFT_RIGHT) {
+            player.closeInventory();
+            guiManager.openPreviewGUI(player, dungeon.getId());
 
-                if (debuggingFlag == 1) {
-                    Bukkit.getLogger().info("[DungeonSelectionGUI] Player " + player.getName() + " returned to category selection");
-                }
-            }
+            DebugLogger.debug(Subsystem.GUI, () -> "Player " + player.getName() +
+                    " viewing rewards for dungeon: " + dungeon.getName());
             return;
         }
 
-        // Dungeon selection
-        Dungeon dungeon = slotToDungeonMap.get(slot);
-        if (dungeon != null) {
-            // Shift + Right Click to view reward preview
-            if (event.getClick() == ClickType.SHIFT_RIGHT) {
-                player.closeInventory();
-
-                // Get the plugin instance and open reward preview GUI
-                GroupDungeonPlugin plugin = (GroupDungeonPlugin) Bukkit.getPluginManager().getPlugin("GroupDungeonPlugin");
-                if (plugin != null) {
-                    plugin.getGuiManager().openPreviewGUI(player, dungeon.getId());
-
-                    if (debuggingFlag == 1) {
-                        Bukkit.getLogger().info("[DungeonSelectionGUI] Player " + player.getName() +
-                                               " viewing rewards for dungeon: " + dungeon.getName());
-                    }
-                }
-                return;
-            }
+        // Left Click to enter dungeon
+        if (event.getClick() == ClickType.LEFT) {
+            // The icon only hints at missing requirements, which may have changed since the menu opened
+            player.closeInventory();
+            dungeonManager.enterDungeon(player, dungeon.getId());
 
-            // Left Click to enter dungeon
-            if (event.getClick() == ClickType.LEFT) {
-                player.closeInventory();
-
-                // Get the plugin instance and enter dungeon
-                GroupDungeonPlugin plugin = (GroupDungeonPlugin) Bukkit.getPluginManager().getPlugin("GroupDungeonPlugin");
-                if (plugin != null) {
-                    plugin.getDungeonManager().enterDungeon(player, dungeon.getId());
-
-                    if (debuggingFlag == 1) {
-                        Bukkit.getLogger().info("[DungeonSelectionGUI] Player " + player.getName() + 
-                                               " attempting to enter dungeon: " + dungeon.getName());
-                    }
-                }
-                return;
-            }
+            DebugLogger.debug(Subsystem.GUI, () -> "Player " + player.getName() +
+                    " attempting to enter dungeon: " + dungeon.getName());
         }
     }
 }
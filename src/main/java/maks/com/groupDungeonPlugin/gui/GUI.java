@@ -1,23 +1,37 @@
 package maks.com.groupDungeonPlugin.gui;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Collections;
 
 /**
  * Base class for all GUIs in the plugin.
+ *
+ * Clicks are dispatched through a table with one {@link ClickHandler} per slot.
+ * Slots are locked unless marked open, in which case players may place and take
+ * items there; clicks, drags and shift-moves all respect the same table.
  */
 public abstract class GUI implements InventoryHolder {
     protected final Inventory inventory;
     protected final Player player;
+    private final ClickHandler[] handlers;
+    private final boolean[] openSlots;
+    private boolean hasOpenSlots;
 
     public GUI(Player player, String title, int size) {
         this.player = player;
         this.inventory = Bukkit.createInventory(this, size, title);
-        initializeItems();
+        this.handlers = new ClickHandler[size];
+        this.openSlots = new boolean[size];
     }
 
     /**
@@ -26,16 +40,114 @@ public abstract class GUI implements InventoryHolder {
     protected abstract void initializeItems();
 
     /**
-     * Handle a click in the inventory.
+     * Registers the handler for a slot, replacing any previous one.
+     *
+     * @param slot The slot
+     * @param handler The handler, or null to remove it
+     */
+    protected void setHandler(int slot, ClickHandler handler) {
+        handlers[slot] = handler;
+    }
+
+    /**
+     * Marks a range of slots as open so players can move items in and out.
+     *
+     * @param from The first slot, inclusive
+     * @param to The last slot, exclusive
+     */
+    protected void setOpenSlots(int from, int to) {
+        for (int slot = from; slot < to; slot++) {
+            openSlots[slot] = true;
+        }
+        hasOpenSlots = true;
+    }
+
+    /**
+     * Creates a page navigation button.
+     *
+     * @param name The button name
+     * @param page The zero-based page the button leads to
+     * @return The button item
+     */
+    protected static ItemStack createPageButton(String name, int page) {
+        ItemStack item = new ItemStack(Material.ARROW);
+        ItemMeta meta = item.getItemMeta();
+        meta.setDisplayName(name);
+        meta.setLore(Collections.singletonList("§7Page " + (page + 1)));
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    /**
+     * Handle a click in the inventory view.
      *
      * @param event The click event
      */
-    public abstract void handleClick(InventoryClickEvent event);
+    public void handleClick(InventoryClickEvent event) {
+        // Collecting to the cursor can pull items out of any slot
+        if (event.getAction() == InventoryAction.COLLECT_TO_CURSOR) {
+            event.setCancelled(true);
+            return;
+        }
+
+        int rawSlot = event.getRawSlot();
+        if (rawSlot < 0 || rawSlot >= handlers.length) {
+            // Player inventory: only shift-moves reach into the GUI
+            if (event.isShiftClick()) {
+                event.setCancelled(true);
+                moveIntoOpenSlot(event);
+            }
+            return;
+        }
+
+        if (!openSlots[rawSlot]) {
+            event.setCancelled(true);
+        }
+        ClickHandler handler = handlers[rawSlot];
+        if (handler != null) {
+            handler.onClick(event);
+        }
+    }
+
+    /**
+     * Handle a drag across the inventory view.
+     *
+     * @param event The drag event
+     */
+    public void handleDrag(InventoryDragEvent event) {
+        for (int rawSlot : event.getRawSlots()) {
+            if (rawSlot < openSlots.length && !openSlots[rawSlot]) {
+                event.setCancelled(true);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves a shift-clicked stack from the player inventory into the first empty open slot.
+     */
+    private void moveIntoOpenSlot(InventoryClickEvent event) {
+        if (!hasOpenSlots) return;
+        ItemStack item = event.getCurrentItem();
+        if (item == null || item.getType() == Material.AIR) return;
+
+        for (int slot = 0; slot < openSlots.length; slot++) {
+            if (!openSlots[slot]) continue;
+            ItemStack existing = inventory.getItem(slot);
+            if (existing == null || existing.getType() == Material.AIR) {
+                inventory.setItem(slot, item.clone());
+                event.setCurrentItem(null);
+                return;
+            }
+        }
+    }
 
     /**
      * Open the inventory for the player.
+     * Items are initialized here rather than in the constructor so subclass fields are set.
      */
     public void open() {
+        initializeItems();
         player.openInventory(inventory);
     }
 
@@ -53,4 +165,4 @@ public abstract class GUI implements InventoryHolder {
     protected void setItem(int slot, ItemStack item) {
         inventory.setItem(slot, item);
     }
-}
\ No newline at end of file
+}
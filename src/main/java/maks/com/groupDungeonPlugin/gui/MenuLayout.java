@@ -0,0 +1,303 @@
+package maks.com.groupDungeonPlugin.gui;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Slot layout of a menu, loaded from the {@code gui} section of config.yml.
+ * Missing values fall back to the built-in layout, and so does the whole menu
+ * if its size or slots are invalid.
+ */
+public final class MenuLayout {
+    private final String title;
+    private final int size;
+    private final int[] slots;
+    private final int backSlot;
+    private final int infoSlot;
+    private final int previousPageSlot;
+    private final int nextPageSlot;
+    private final int headerSlot;
+    private final int emptySlot;
+    private final List<TierLayout> tiers;
+
+    private MenuLayout(String title, int size, int[] slots, int backSlot, int infoSlot,
+                       int previousPageSlot, int nextPageSlot, int headerSlot, int emptySlot,
+                       List<TierLayout> tiers) {
+        this.title = title;
+        this.size = size;
+        this.slots = slots;
+        this.backSlot = backSlot;
+        this.infoSlot = infoSlot;
+        this.previousPageSlot = previousPageSlot;
+        this.nextPageSlot = nextPageSlot;
+        this.headerSlot = headerSlot;
+        this.emptySlot = emptySlot;
+        this.tiers = Collections.unmodifiableList(tiers);
+    }
+
+    /**
+     * Loads the category menu layout.
+     *
+     * @param section The {@code gui.categories} section, or null for the built-in layout
+     * @return The layout
+     */
+    public static MenuLayout loadCategoryLayout(ConfigurationSection section) {
+        if (section == null) {
+            return new MenuLayout("§8Select Dungeon Category", 54, new int[]{19, 22, 25},
+                    -1, 49, 45, 53, 4, 22, Collections.emptyList());
+        }
+        int size = section.getInt("size", 54);
+        MenuLayout layout = new MenuLayout(
+                color(section.getString("title", "&8Select Dungeon Category")),
+                size,
+                toSlots(section.getIntegerList("slots"), new int[]{19, 22, 25}),
+                -1,
+                section.getInt("info-slot", 49),
+                section.getInt("previous-page-slot", 45),
+                section.getInt("next-page-slot", 53),
+                section.getInt("header-slot", 4),
+                // Middle of the menu by default, slot 22 in a 54 slot menu
+                section.getInt("empty-slot", (size / 9 - 1) / 2 * 9 + 4),
+                Collections.emptyList());
+        return layout.isValid("gui.categories") ? layout : loadCategoryLayout(null);
+    }
+
+    /**
+     * Loads the dungeon menu layout.
+     *
+     * @param section The {@code gui.dungeons} section, or null for the built-in layout
+     * @return The layout
+     */
+    public static MenuLayout loadDungeonLayout(ConfigurationSection section) {
+        ConfigurationSection tiersSection = section != null ? section.getConfigurationSection("tiers") : null;
+        List<TierLayout> tiers = new ArrayList<>();
+        if (tiersSection == null) {
+            tiers.add(new TierLayout(1, 10, "§fTier 1", "§7Beginner", new int[]{19, 20, 21}));
+            tiers.add(new TierLayout(2, 16, "§aTier 2", "§7Intermediate", new int[]{22, 23, 24, 25}));
+            tiers.add(new TierLayout(3, 27, "§9Tier 3", "§7Advanced", new int[]{28, 29, 30, 31}));
+            tiers.add(new TierLayout(4, 35, "§5Tier 4", "§7Expert", new int[]{32, 33, 34}));
+            tiers.add(new TierLayout(5, 46, "§6Tier 5", "§7Master", new int[]{37, 38, 39, 40, 41, 42, 43}));
+        } else {
+            for (String key : tiersSection.getKeys(false)) {
+                ConfigurationSection tierSection = tiersSection.getConfigurationSection(key);
+                if (tierSection == null) continue;
+                int tier = tierSection.getInt("tier", parseInt(key));
+                tiers.add(new TierLayout(tier,
+                        tierSection.getInt("label-slot", -1),
+                        color(tierSection.getString("name", "&fTier " + tier)),
+                        color(tierSection.getString("description", "")),
+                        toSlots(tierSection.getIntegerList("slots"), new int[0])));
+            }
+        }
+
+        if (section == null) {
+            return new MenuLayout("§8Dungeons - {category}", 54, new int[0], 49, 4, 45, 53, -1, -1, tiers);
+        }
+        MenuLayout layout = new MenuLayout(
+                color(section.getString("title", "&8Dungeons - {category}")),
+                section.getInt("size", 54),
+                new int[0],
+                section.getInt("back-slot", 49),
+                section.getInt("info-slot", 4),
+                section.getInt("previous-page-slot", 45),
+                section.getInt("next-page-slot", 53),
+                -1,
+                -1,
+                tiers);
+        return layout.isValid("gui.dungeons") ? layout : loadDungeonLayout(null);
+    }
+
+    /**
+     * Checks that the size is a valid inventory size and that every slot lies
+     * inside the menu and is used only once. Problems are logged.
+     *
+     * @param path The config path of the layout, for the log
+     * @return True if the layout can be used
+     */
+    private boolean isValid(String path) {
+        List<String> problems = new ArrayList<>();
+        if (size < 9 || size > 54 || size % 9 != 0) {
+            problems.add("size " + size + " must be a multiple of 9 between 9 and 54");
+        } else {
+            Map<Integer, String> used = new HashMap<>();
+            for (int slot : slots) {
+                checkSlot(slot, "slots", used, problems);
+            }
+            // The back slot and tier labels may be turned off with -1
+            if (backSlot != -1) checkSlot(backSlot, "back-slot", used, problems);
+            checkSlot(infoSlot, "info-slot", used, problems);
+            checkSlot(previousPageSlot, "previous-page-slot", used, problems);
+            checkSlot(nextPageSlot, "next-page-slot", used, problems);
+            if (headerSlot != -1) checkSlot(headerSlot, "header-slot", used, problems);
+            // Only shown while there are no entries, so it may share a slot with them
+            if (emptySlot < -1 || emptySlot >= size) {
+                problems.add("empty-slot " + emptySlot + " is outside the menu of size " + size);
+            }
+            for (TierLayout tier : tiers) {
+                String prefix = "tier " + tier.getTier() + " ";
+                if (tier.getLabelSlot() != -1) checkSlot(tier.getLabelSlot(), prefix + "label-slot", used, problems);
+                for (int slot : tier.getSlots()) {
+                    checkSlot(slot, prefix + "slots", used, problems);
+                }
+            }
+        }
+
+        for (String problem : problems) {
+            Bukkit.getLogger().warning("[MenuLayout] " + path + ": " + problem);
+        }
+        if (!problems.isEmpty()) {
+            Bukkit.getLogger().warning("[MenuLayout] Using the built-in layout for " + path);
+        }
+        return problems.isEmpty();
+    }
+
+    private void checkSlot(int slot, String name, Map<Integer, String> used, List<String> problems) {
+        if (slot < 0 || slot >= size) {
+            problems.add(name + " " + slot + " is outside the menu of size " + size);
+            return;
+        }
+        String previous = used.putIfAbsent(slot, name);
+        if (previous != null) {
+            problems.add("slot " + slot + " is used by both " + previous + " and " + name);
+        }
+    }
+
+    private static int[] toSlots(List<Integer> values, int[] fallback) {
+        if (values == null || values.isEmpty()) return fallback;
+        int[] slots = new int[values.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = values.get(i);
+        }
+        return slots;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String color(String text) {
+        return text.replace("&", "§");
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the slots filled with entries, in order.
+     *
+     * @return The entry slots (do not modify)
+     */
+    public int[] getSlots() {
+        return slots;
+    }
+
+    public int getBackSlot() {
+        return backSlot;
+    }
+
+    public int getInfoSlot() {
+        return infoSlot;
+    }
+
+    public int getPreviousPageSlot() {
+        return previousPageSlot;
+    }
+
+    public int getNextPageSlot() {
+        return nextPageSlot;
+    }
+
+    /**
+     * Gets the slot of the menu's header item.
+     *
+     * @return The slot, or -1 for no header
+     */
+    public int getHeaderSlot() {
+        return headerSlot;
+    }
+
+    /**
+     * Gets the slot of the item shown when there is nothing to list.
+     *
+     * @return The slot, or -1 for no item
+     */
+    public int getEmptySlot() {
+        return emptySlot;
+    }
+
+    public List<TierLayout> getTiers() {
+        return tiers;
+    }
+
+    /**
+     * Gets the layout for a tier.
+     *
+     * @param tier The tier
+     * @return The tier layout, or null if the tier has none
+     */
+    public TierLayout getTier(int tier) {
+        for (TierLayout layout : tiers) {
+            if (layout.getTier() == tier) return layout;
+        }
+        return null;
+    }
+
+    /**
+     * Slots and label of one dungeon tier.
+     */
+    public static final class TierLayout {
+        private final int tier;
+        private final int labelSlot;
+        private final String name;
+        private final String description;
+        private final int[] slots;
+
+        TierLayout(int tier, int labelSlot, String name, String description, int[] slots) {
+            this.tier = tier;
+            this.labelSlot = labelSlot;
+            this.name = name;
+            this.description = description;
+            this.slots = slots;
+        }
+
+        public int getTier() {
+            return tier;
+        }
+
+        public int getLabelSlot() {
+            return labelSlot;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the slots for dungeons of this tier, in order.
+         *
+         * @return The slots (do not modify)
+         */
+        public int[] getSlots() {
+            return slots;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package maks.com.groupDungeonPlugin.gui;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Immutable, pre-rendered menu layout.
+ * A template is rendered once and shared by every player view; opening a view
+ * copies the contents array into the inventory instead of rebuilding each item.
+ *
+ * @param <T> The type of object bound to clickable slots
+ */
+public final class MenuTemplate<T> {
+    private final String title;
+    private final ItemStack[] contents;
+    private final Object[] bindings;
+    private final int page;
+    private final int pageCount;
+
+    private MenuTemplate(Builder<T> builder) {
+        this.title = builder.title;
+        this.contents = builder.contents.clone();
+        this.bindings = builder.bindings.clone();
+        this.page = builder.page;
+        this.pageCount = builder.pageCount;
+    }
+
+    /**
+     * Creates a builder for a template.
+     *
+     * @param title The inventory title
+     * @param size The inventory size
+     * @param <T> The type of object bound to clickable slots
+     * @return A new builder
+     */
+    public static <T> Builder<T> builder(String title, int size) {
+        return new Builder<>(title, size);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getSize() {
+        return contents.length;
+    }
+
+    /**
+     * Gets the zero-based page this template shows.
+     *
+     * @return The page
+     */
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public boolean hasPreviousPage() {
+        return page > 0;
+    }
+
+    public boolean hasNextPage() {
+        return page + 1 < pageCount;
+    }
+
+    /**
+     * Copies the rendered contents into an inventory.
+     * The inventory stores its own copies, so the template is never modified.
+     *
+     * @param inventory The inventory to fill
+     */
+    public void applyTo(Inventory inventory) {
+        inventory.setContents(contents);
+    }
+
+    /**
+     * Gets the shared item rendered in a slot. The item must not be modified.
+     *
+     * @param slot The slot
+     * @return The item, or null if the slot is empty
+     */
+    ItemStack getItem(int slot) {
+        return contents[slot];
+    }
+
+    /**
+     * Gets the object bound to a slot.
+     *
+     * @param slot The slot
+     * @return The bound object, or null if the slot is not bound
+     */
+    @SuppressWarnings("unchecked")
+    public T getBinding(int slot) {
+        if (slot < 0 || slot >= bindings.length) return null;
+        return (T) bindings[slot];
+    }
+
+    /**
+     * Builder for {@link MenuTemplate}.
+     *
+     * @param <T> The type of object bound to clickable slots
+     */
+    public static final class Builder<T> {
+        private final String title;
+        private final ItemStack[] contents;
+        private final Object[] bindings;
+        private int page;
+        private int pageCount = 1;
+
+        private Builder(String title, int size) {
+            this.title = title;
+            this.contents = new ItemStack[size];
+            this.bindings = new Object[size];
+        }
+
+        public int getSize() {
+            return contents.length;
+        }
+
+        /**
+         * Places an item in a slot.
+         *
+         * @param slot The slot
+         * @param item The item
+         * @return This builder
+         */
+        public Builder<T> setItem(int slot, ItemStack item) {
+            contents[slot] = item;
+            return this;
+        }
+
+        /**
+         * Places an item in a slot and binds an object to it.
+         *
+         * @param slot The slot
+         * @param item The item
+         * @param value The object returned by {@link MenuTemplate#getBinding(int)}
+         * @return This builder
+         */
+        public Builder<T> bind(int slot, ItemStack item, T value) {
+            contents[slot] = item;
+            bindings[slot] = value;
+            return this;
+        }
+
+        /**
+         * Places an item in every slot.
+         *
+         * @param item The item
+         * @return This builder
+         */
+        public Builder<T> fill(ItemStack item) {
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = item;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the page this template shows.
+         *
+         * @param page The zero-based page
+         * @param pageCount The total number of pages
+         * @return This builder
+         */
+        public Builder<T> page(int page, int pageCount) {
+            this.page = page;
+            this.pageCount = pageCount;
+            return this;
+        }
+
+        public MenuTemplate<T> build() {
+            return new MenuTemplate<>(this);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package maks.com.groupDungeonPlugin.gui;
+
+import maks.com.groupDungeonPlugin.api.DungeonManager;
+import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.DungeonCatalog;
+import maks.com.groupDungeonPlugin.models.DungeonCategory;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Caches rendered menu templates until the dungeon configuration changes.
+ *
+ * Menu pages are rendered on first use and kept in a bounded LRU cache, so memory
+ * stays flat however many dungeons and pages exist. When a page is opened, the
+ * pages next to it are rendered on the following tick so that paging through a
+ * menu rarely waits for a render. Only accessed from the main thread.
+ */
+public class MenuTemplateCache {
+    private final JavaPlugin plugin;
+    private final DungeonManager dungeonManager;
+    private final Map<String, MenuTemplate<?>> templates;
+    private final DungeonIconRenderer iconRenderer;
+    private final MenuLayout categoryLayout;
+    private final MenuLayout dungeonLayout;
+
+    // Built once per configuration so rendering a page never scans the catalog
+    private List<DungeonCategory> orderedCategories;
+    private final Map<String, DungeonPageIndex> pageIndexes = new HashMap<>();
+
+    private final Set<String> pendingPrefetches = new HashSet<>();
+    private int generation;
+
+    /**
+     * Creates a template cache.
+     *
+     * @param plugin The plugin used to schedule prefetching
+     * @param dungeonManager The dungeon manager providing categories and dungeons
+     * @param categoryLayout The layout of the category menu
+     * @param dungeonLayout The layout of the dungeon menus
+     * @param maxPages The maximum number of rendered pages kept
+     */
+    public MenuTemplateCache(JavaPlugin plugin, DungeonManager dungeonManager, MenuLayout categoryLayout,
+                             MenuLayout dungeonLayout, int maxPages) {
+        this.plugin = plugin;
+        this.dungeonManager = dungeonManager;
+        this.iconRenderer = new DungeonIconRenderer(dungeonManager);
+        this.categoryLayout = categoryLayout;
+        this.dungeonLayout = dungeonLayout;
+        this.templates = new LinkedHashMap<String, MenuTemplate<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MenuTemplate<?>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public MenuLayout getCategoryLayout() {
+        return categoryLayout;
+    }
+
+    public MenuLayout getDungeonLayout() {
+        return dungeonLayout;
+    }
+
+    /**
+     * Gets a cached template, rendering it if needed.
+     *
+     * @param key The cache key
+     * @param renderer Renders the template on a cache miss
+     * @param <T> The type of object bound to clickable slots
+     * @return The template
+     */
+    @SuppressWarnings("unchecked")
+    public <T> MenuTemplate<T> get(String key, Supplier<MenuTemplate<T>> renderer) {
+        MenuTemplate<?> template = templates.get(key);
+        if (template == null) {
+            template = renderer.get();
+            templates.put(key, template);
+            DebugLogger.debug(Subsystem.GUI, () -> "Rendered menu template " + key);
+        }
+        return (MenuTemplate<T>) template;
+    }
+
+    /**
+     * Gets a page of the category selection menu and prefetches its neighbours.
+     *
+     * @param page The zero-based page
+     * @return The template
+     */
+    public MenuTemplate<DungeonCategory> getCategoryMenu(int page) {
+        MenuTemplate<DungeonCategory> template = renderCategoryPage(page);
+        prefetchAdjacent(template, "categories:", this::renderCategoryPage);
+        return template;
+    }
+
+    /**
+     * Gets a page of the dungeon selection menu for a category and prefetches its neighbours.
+     *
+     * @param category The category
+     * @param page The zero-based page
+     * @return The template
+     */
+    public MenuTemplate<Dungeon> getDungeonMenu(DungeonCategory category, int page) {
+        MenuTemplate<Dungeon> template = renderDungeonPage(category, page);
+        prefetchAdjacent(template, "category:" + category.getId() + ":", p -> renderDungeonPage(category, p));
+        return template;
+    }
+
+    private MenuTemplate<DungeonCategory> renderCategoryPage(int page) {
+        return get("categories:" + page, () -> {
+            if (orderedCategories == null) {
+                orderedCategories = new ArrayList<>(dungeonManager.getCategories().values());
+            }
+            return CategorySelectionGUI.renderTemplate(categoryLayout, orderedCategories, page);
+        });
+    }
+
+    private MenuTemplate<Dungeon> renderDungeonPage(DungeonCategory category, int page) {
+        return get("category:" + category.getId() + ":" + page, () -> {
+            // Menus opened before a reload still hold the old category
+            DungeonCatalog catalog = dungeonManager.getCatalog();
+            DungeonCategory current = catalog.getCategory(category.getId());
+            DungeonCategory source = current != null ? current : category;
+            DungeonPageIndex index = pageIndexes.computeIfAbsent(source.getId(),
+                    id -> new DungeonPageIndex(dungeonLayout, source, catalog.getDungeonsByTier(id)));
+            return DungeonSelectionGUI.renderTemplate(dungeonLayout, source, index, page);
+        });
+    }
+
+    /**
+     * Renders the pages before and after a template on the next tick if they are not cached.
+     */
+    private void prefetchAdjacent(MenuTemplate<?> template, String keyPrefix, PageRenderer renderer) {
+        if (template.hasPreviousPage()) {
+            prefetch(keyPrefix, template.getPage() - 1, renderer);
+        }
+        if (template.hasNextPage()) {
+            prefetch(keyPrefix, template.getPage() + 1, renderer);
+        }
+    }
+
+    private void prefetch(String keyPrefix, int page, PageRenderer renderer) {
+        String key = keyPrefix + page;
+        if (templates.containsKey(key) || !pendingPrefetches.add(key)) return;
+
+        int scheduledGeneration = generation;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            pendingPrefetches.remove(key);
+            // Skip pages of a configuration that has since been replaced
+            if (scheduledGeneration == generation) {
+                renderer.render(page);
+            }
+        });
+    }
+
+    /**
+     * Gets the renderer for per-player dungeon icons, which shares this cache's lifetime.
+     *
+     * @return The icon renderer
+     */
+    public DungeonIconRenderer getIconRenderer() {
+        return iconRenderer;
+    }
+
+    /**
+     * Drops all templates and icon variants so they are rendered again on next use.
+     */
+    public void invalidate() {
+        generation++;
+        templates.clear();
+        orderedCategories = null;
+        pageIndexes.clear();
+        iconRenderer.invalidate();
+    }
+
+    /**
+     * Renders one page of a menu.
+     */
+    @FunctionalInterface
+    private interface PageRenderer {
+        void render(int page);
+    }
+}
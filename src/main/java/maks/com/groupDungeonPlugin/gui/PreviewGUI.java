@@ -2,14 +2,12 @@ package maks.com.groupDungeonPlugin.gui;
 
 import maks.com.groupDungeonPlugin.api.DungeonManager;
 import maks.com.groupDungeonPlugin.models.Dungeon;
+import maks.com.groupDungeonPlugin.models.PreviewSnapshot;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.Map;
-
 /**
  * GUI used for displaying and editing reward preview items for a dungeon.
  */
@@ -23,16 +21,18 @@ public class PreviewGUI extends GUI {
         this.dungeon = dungeon;
         this.dungeonManager = dungeonManager;
         this.editable = editable;
+
+        if (editable) {
+            setOpenSlots(0, 45);
+            setHandler(53, event -> save());
+        }
+        setHandler(49, event -> player.closeInventory());
     }
 
     @Override
     protected void initializeItems() {
-        for (int i = 0; i < 45; i++) {
-            ItemStack item = dungeon.getPreviewItems().get(i);
-            if (item != null) {
-                inventory.setItem(i, item.clone());
-            }
-        }
+        // The snapshot is immutable, so it is shared instead of cloned per viewer
+        dungeon.getPreviewSnapshot().applyTo(inventory);
 
         if (editable) {
             ItemStack save = new ItemStack(Material.EMERALD);
@@ -49,31 +49,22 @@ public class PreviewGUI extends GUI {
         setItem(49, close);
     }
 
-    @Override
-    public void handleClick(InventoryClickEvent event) {
-        int slot = event.getSlot();
-
-        if (!editable || slot >= 45) {
-            event.setCancelled(true);
-        }
-
-        if (slot == 49) {
+    /**
+     * Publishes the edited preview items as a new snapshot and closes the editor.
+     * The dungeon is looked up again, since a reload may have replaced it while
+     * the editor was open.
+     */
+    private void save() {
+        Dungeon target = dungeonManager.getDungeon(dungeon.getId());
+        if (target == null) {
             player.closeInventory();
+            player.sendMessage("§cDungeon " + dungeon.getId() + " no longer exists, the reward preview was not saved.");
             return;
         }
-
-        if (editable && slot == 53) {
-            Map<Integer, ItemStack> map = dungeon.getPreviewItems();
-            map.clear();
-            for (int i = 0; i < 45; i++) {
-                ItemStack item = inventory.getItem(i);
-                if (item != null && item.getType() != Material.AIR) {
-                    map.put(i, item.clone());
-                }
-            }
-            dungeonManager.savePreviewItems(dungeon.getId());
-            player.closeInventory();
-            player.sendMessage("§aReward preview saved.");
-        }
+        PreviewSnapshot current = target.getPreviewSnapshot();
+        target.publishPreview(PreviewSnapshot.of(inventory, current.getVersion() + 1));
+        dungeonManager.savePreviewItems(target.getId());
+        player.closeInventory();
+        player.sendMessage("§aReward preview saved.");
     }
 }
@@ -1,23 +1,86 @@
 package maks.com.groupDungeonPlugin.listeners;
 
 import maks.com.groupDungeonPlugin.api.DungeonManager;
+import maks.com.groupDungeonPlugin.models.DungeonCatalog;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Advances dungeon stages when trigger mobs are killed.
+ *
+ * Mobs spawning in dungeon worlds are checked once: trigger mobs are tagged with
+ * their normalized name, other mobs with the catalog version they were checked
+ * against. Deaths of checked mobs need no string work; only mobs that were never
+ * checked, or were checked before a reload, have their name normalized when a
+ * player inside a dungeon kills them.
+ */
 public class DungeonMobListener implements Listener {
+    private final JavaPlugin plugin;
     private final DungeonManager dungeonManager;
+    private final NamespacedKey triggerKey;
+    private final NamespacedKey checkedKey;
+
+    // Mobs spawned this tick, checked together on the next tick
+    private final List<LivingEntity> pendingSpawns = new ArrayList<>();
 
-    public DungeonMobListener(DungeonManager dungeonManager) {
+    public DungeonMobListener(JavaPlugin plugin, DungeonManager dungeonManager) {
+        this.plugin = plugin;
         this.dungeonManager = dungeonManager;
+        this.triggerKey = new NamespacedKey(plugin, "trigger_mob");
+        this.checkedKey = new NamespacedKey(plugin, "checked_catalog");
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCreatureSpawn(CreatureSpawnEvent event) {
+        if (!dungeonManager.isMobTaggingWorld(event.getEntity().getWorld())) return;
+        // Mob plugins usually name their mobs after spawning them
+        if (pendingSpawns.isEmpty()) {
+            Bukkit.getScheduler().runTask(plugin, this::tagPendingSpawns);
+        }
+        pendingSpawns.add(event.getEntity());
+    }
+
+    private void tagPendingSpawns() {
+        long version = dungeonManager.getCatalog().getVersion();
+        for (LivingEntity entity : pendingSpawns) {
+            if (!entity.isValid()) continue;
+            String name = DungeonCatalog.normalizeMobName(entity.getName());
+            if (dungeonManager.isTriggerMob(name)) {
+                entity.getPersistentDataContainer().set(triggerKey, PersistentDataType.STRING, name);
+            } else {
+                entity.getPersistentDataContainer().set(checkedKey, PersistentDataType.LONG, version);
+            }
+        }
+        pendingSpawns.clear();
     }
 
     @EventHandler
     public void onEntityDeath(EntityDeathEvent event) {
+        if (!dungeonManager.hasActiveRunIn(event.getEntity().getWorld())) return;
         Player killer = event.getEntity().getKiller();
-        if (killer == null) return;
-        String name = event.getEntity().getName();
-        dungeonManager.handleMobDeath(killer, name);
+        if (killer == null || !dungeonManager.isInDungeon(killer)) return;
+
+        PersistentDataContainer data = event.getEntity().getPersistentDataContainer();
+        String name = data.get(triggerKey, PersistentDataType.STRING);
+        if (name == null) {
+            Long checked = data.get(checkedKey, PersistentDataType.LONG);
+            if (checked != null && checked == dungeonManager.getCatalog().getVersion()) return;
+            // Spawned outside a dungeon world, before the plugin was enabled or before the last reload
+            name = DungeonCatalog.normalizeMobName(event.getEntity().getName());
+        }
+        dungeonManager.handleMobDeath(killer, name, event.getEntity().getLocation());
     }
 }
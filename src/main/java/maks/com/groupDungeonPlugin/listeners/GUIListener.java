@@ -4,10 +4,11 @@ import maks.com.groupDungeonPlugin.gui.GUI;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.InventoryHolder;
 
 /**
- * Generic listener that forwards inventory clicks to GUI instances.
+ * Generic listener that forwards inventory clicks and drags to GUI instances.
  */
 public class GUIListener implements Listener {
 
@@ -18,4 +19,12 @@ public class GUIListener implements Listener {
             ((GUI) holder).handleClick(event);
         }
     }
+
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (holder instanceof GUI) {
+            ((GUI) holder).handleDrag(event);
+        }
+    }
 }
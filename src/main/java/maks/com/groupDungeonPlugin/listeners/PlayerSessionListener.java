@@ -0,0 +1,35 @@
+package maks.com.groupDungeonPlugin.listeners;
+
+import maks.com.groupDungeonPlugin.api.DungeonManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Clears per-player dungeon state when players leave and hands out keys of
+ * runs lost in a restart when they join.
+ */
+public class PlayerSessionListener implements Listener {
+    private final DungeonManager dungeonManager;
+
+    /**
+     * Creates a new session listener.
+     *
+     * @param dungeonManager The dungeon manager
+     */
+    public PlayerSessionListener(DungeonManager dungeonManager) {
+        this.dungeonManager = dungeonManager;
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        dungeonManager.handlePlayerJoin(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        dungeonManager.handlePlayerQuit(event.getPlayer());
+    }
+}
@@ -0,0 +1,112 @@
+package maks.com.groupDungeonPlugin.listeners;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Hashed index of dungeon portal blocks.
+ * Portals are keyed by world UID and a packed block coordinate, with a secondary
+ * set of chunk keys per world so clicks in chunks without portals are rejected
+ * before the block lookup.
+ */
+public final class PortalIndex {
+    private final Map<UUID, WorldPortals> worlds = new HashMap<>();
+
+    /**
+     * Registers a portal block.
+     *
+     * @param worldId UID of the portal's world
+     * @param x block x
+     * @param y block y
+     * @param z block z
+     * @param dungeonId dungeon the portal leads to
+     */
+    public void add(UUID worldId, int x, int y, int z, String dungeonId) {
+        WorldPortals portals = worlds.computeIfAbsent(worldId, id -> new WorldPortals());
+        portals.blocks.put(packBlock(x, y, z), dungeonId);
+        portals.chunks.add(packChunk(x >> 4, z >> 4));
+    }
+
+    /**
+     * Removes all portals.
+     */
+    public void clear() {
+        worlds.clear();
+    }
+
+    /**
+     * Checks if a world contains any portal.
+     *
+     * @param worldId UID of the world
+     * @return True if at least one portal is in the world
+     */
+    public boolean hasPortals(UUID worldId) {
+        return worlds.containsKey(worldId);
+    }
+
+    /**
+     * Checks if a chunk contains any portal.
+     *
+     * @param worldId UID of the world
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @return True if at least one portal is in the chunk
+     */
+    public boolean hasPortalsInChunk(UUID worldId, int chunkX, int chunkZ) {
+        WorldPortals portals = worlds.get(worldId);
+        return portals != null && portals.chunks.contains(packChunk(chunkX, chunkZ));
+    }
+
+    /**
+     * Gets the dungeon a portal block leads to.
+     *
+     * @param worldId UID of the world
+     * @param x block x
+     * @param y block y
+     * @param z block z
+     * @return The dungeon ID, or null if the block is not a portal
+     */
+    public String get(UUID worldId, int x, int y, int z) {
+        WorldPortals portals = worlds.get(worldId);
+        if (portals == null || !portals.chunks.contains(packChunk(x >> 4, z >> 4))) {
+            return null;
+        }
+        return portals.blocks.get(packBlock(x, y, z));
+    }
+
+    /**
+     * @return number of indexed portal blocks
+     */
+    public int size() {
+        int size = 0;
+        for (WorldPortals portals : worlds.values()) {
+            size += portals.blocks.size();
+        }
+        return size;
+    }
+
+    /**
+     * Packs block coordinates into a long (26 bits x, 26 bits z, 12 bits y).
+     */
+    static long packBlock(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    /**
+     * Packs chunk coordinates into a long.
+     */
+    static long packChunk(int chunkX, int chunkZ) {
+        return ((long) chunkX & 0xFFFFFFFFL) << 32 | ((long) chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Portals of a single world.
+     */
+    private static final class WorldPortals {
+        private final Map<Long, String> blocks = new HashMap<>();
+        private final Set<Long> chunks = new HashSet<>();
+    }
+}
@@ -2,19 +2,25 @@ package maks.com.groupDungeonPlugin.listeners;
 
 import maks.com.groupDungeonPlugin.GroupDungeonPlugin;
 import maks.com.groupDungeonPlugin.api.DungeonManager;
-import org.bukkit.Location;
+import maks.com.groupDungeonPlugin.utils.DebugLogger;
+import maks.com.groupDungeonPlugin.utils.DebugLogger.Subsystem;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.world.WorldLoadEvent;
 import org.bukkit.inventory.EquipmentSlot;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Listener for portal handling.
@@ -23,7 +29,7 @@ public class PortalListener implements Listener {
     private final DungeonManager dungeonManager;
     private final GroupDungeonPlugin plugin;
     private final Map<String, PortalLocation> portalLocations;
-    private static final int debuggingFlag = 1;
+    private final PortalIndex portalIndex;
 
     /**
      * Creates a new portal listener.
@@ -35,7 +41,9 @@ public class PortalListener implements Listener {
         this.plugin = plugin;
         this.dungeonManager = dungeonManager;
         this.portalLocations = new HashMap<>();
+        this.portalIndex = new PortalIndex();
         loadPortalLocations();
+        rebuildPortalIndex();
     }
 
     /**
@@ -62,15 +70,11 @@ public class PortalListener implements Listener {
 
                 portalLocations.put(dungeonId, new PortalLocation(world, x, y, z));
 
-                if (debuggingFlag == 1) {
-                    plugin.getLogger().info("Loaded portal for dungeon: " + dungeonId + " at " + world + "," + x + "," + y + "," + z);
-                }
+                DebugLogger.trace(Subsystem.PORTAL, () -> "Loaded portal for dungeon: " + dungeonId + " at " + world + "," + x + "," + y + "," + z);
             }
         }
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Loaded " + portalLocations.size() + " portal locations");
-        }
+        DebugLogger.debug(Subsystem.PORTAL, () -> "Loaded " + portalLocations.size() + " portal locations");
     }
 
     /**
@@ -98,9 +102,7 @@ public class PortalListener implements Listener {
         portalLocations.put("fantasy_spire", new PortalLocation("world", -610, -58, -929));
         portalLocations.put("fantasy_citadel", new PortalLocation("world", -605, -58, -929));
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Created " + portalLocations.size() + " default portal locations");
-        }
+        DebugLogger.debug(Subsystem.PORTAL, () -> "Created " + portalLocations.size() + " default portal locations");
     }
 
     /**
@@ -125,80 +127,83 @@ public class PortalListener implements Listener {
 
         plugin.saveConfig();
 
-        if (debuggingFlag == 1) {
-            plugin.getLogger().info("Saved " + portalLocations.size() + " portal locations to config");
+        DebugLogger.debug(Subsystem.PORTAL, () -> "Saved " + portalLocations.size() + " portal locations to config");
+    }
+
+    /**
+     * Rebuilds the portal index from the configured locations.
+     * Portals in worlds that are not loaded yet are indexed once the world loads.
+     */
+    private void rebuildPortalIndex() {
+        portalIndex.clear();
+        for (Map.Entry<String, PortalLocation> entry : portalLocations.entrySet()) {
+            PortalLocation location = entry.getValue();
+            World world = Bukkit.getWorld(location.world);
+            if (world != null) {
+                portalIndex.add(world.getUID(), location.x, location.y, location.z, entry.getKey());
+            }
         }
+
+        DebugLogger.debug(Subsystem.PORTAL, () -> "Indexed " + portalIndex.size() + " of " + portalLocations.size() + " portal locations");
+    }
+
+    /**
+     * Indexes portals of worlds loaded after startup.
+     *
+     * @param event The world load event
+     */
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        rebuildPortalIndex();
     }
 
     /**
      * Handles entering portals.
+     * Checks are ordered from cheapest to most expensive: action and hand,
+     * then the world, then the chunk, and only then the block itself.
      *
      * @param event The player interact event
      */
     @EventHandler
     public void onPlayerInteract(PlayerInteractEvent event) {
+        // Only block clicks can hit a portal frame
+        Action action = event.getAction();
+        if (action != Action.RIGHT_CLICK_BLOCK && action != Action.LEFT_CLICK_BLOCK) return;
+
         // Ignore off-hand interactions
         if (event.getHand() == EquipmentSlot.OFF_HAND) return;
 
-        Player player = event.getPlayer();
         Block block = event.getClickedBlock();
-
         if (block == null) return;
 
+        // Worlds without portals, then chunks without portals
+        UUID worldId = block.getWorld().getUID();
+        if (!portalIndex.hasPortals(worldId)) return;
+        if (!portalIndex.hasPortalsInChunk(worldId, block.getX() >> 4, block.getZ() >> 4)) return;
+
+        Player player = event.getPlayer();
+
         // Check if the block is a portal (End Portal Frame)
         if (block.getType() == Material.END_PORTAL_FRAME) {
             event.setCancelled(true);
 
             // Check which dungeon this portal is for
-            String dungeonId = getDungeonIdFromLocation(block.getLocation());
+            String dungeonId = portalIndex.get(worldId, block.getX(), block.getY(), block.getZ());
 
             if (dungeonId != null) {
-                if (debuggingFlag == 1) {
-                    plugin.getLogger().info("Player " + player.getName() + " is interacting with portal for dungeon: " + dungeonId);
-                }
+                DebugLogger.debug(Subsystem.PORTAL, () -> "Player " + player.getName() + " is interacting with portal for dungeon: " + dungeonId);
 
                 // Try to enter the dungeon
                 dungeonManager.enterDungeon(player, dungeonId);
             } else {
-                if (debuggingFlag == 1) {
-                    plugin.getLogger().info("Player " + player.getName() + " clicked an End Portal Frame that isn't a dungeon portal");
-                    plugin.getLogger().info("Location: " + block.getLocation().getWorld().getName() + ", " + 
-                                           block.getLocation().getBlockX() + ", " + 
-                                           block.getLocation().getBlockY() + ", " + 
-                                           block.getLocation().getBlockZ());
-                }
+                DebugLogger.debug(Subsystem.PORTAL, () -> "Player " + player.getName() + " clicked an End Portal Frame that isn't a dungeon portal at " +
+                        block.getWorld().getName() + ", " + block.getX() + ", " + block.getY() + ", " + block.getZ());
 
                 player.sendMessage("§cThis doesn't seem to be a dungeon portal.");
             }
         }
     }
 
-    /**
-     * Gets the dungeon ID from a location.
-     *
-     * @param location The location to check
-     * @return The dungeon ID, or null if no dungeon is associated with this location
-     */
-    private String getDungeonIdFromLocation(Location location) {
-        String worldName = location.getWorld().getName();
-        int x = location.getBlockX();
-        int y = location.getBlockY();
-        int z = location.getBlockZ();
-
-        for (Map.Entry<String, PortalLocation> entry : portalLocations.entrySet()) {
-            PortalLocation portalLocation = entry.getValue();
-
-            if (portalLocation.world.equals(worldName) && 
-                portalLocation.x == x && 
-                portalLocation.y == y && 
-                portalLocation.z == z) {
-                return entry.getKey();
-            }
-        }
-
-        return null;
-    }
-
     /**
      * Class representing a portal location.
      */
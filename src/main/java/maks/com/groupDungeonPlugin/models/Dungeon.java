@@ -4,9 +4,13 @@ import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a single dungeon.
@@ -29,11 +33,22 @@ public class Dungeon {
     // Warp configuration
     private String entryWarp;           // Warp used to enter the dungeon
 
-    // Preview items mapped by slot
-    private Map<Integer, ItemStack> previewItems;
+    // Where the dungeon is played, null if it is not limited to a world
+    private DungeonArea area;
 
-    // Quest stages for the dungeon
-    private final List<QuestStage> questStages;
+    // Parties that can play the dungeon at the same time, 0 for the configured default
+    private int instances;
+
+    // Current preview items, replaced as a whole on every change
+    private volatile PreviewSnapshot previewSnapshot;
+
+    // Preview slots changed since the last save
+    private final Set<Integer> dirtyPreviewSlots;
+
+    // Quest stages for the dungeon, unmodifiable once the dungeon is published in a catalog
+    private List<QuestStage> questStages;
+    private Set<String> triggerMobs;    // Normalized trigger names of all stages
+    private boolean frozen;
 
     /**
      * Creates a new dungeon.
@@ -61,7 +76,8 @@ public class Dungeon {
         this.categoryId = categoryId;
         this.keyId = null;
         this.keyDisplayName = null;
-        this.previewItems = new HashMap<>();
+        this.previewSnapshot = PreviewSnapshot.EMPTY;
+        this.dirtyPreviewSlots = new HashSet<>();
         this.questStages = new ArrayList<>();
         this.entryWarp = null;
     }
@@ -95,7 +111,8 @@ public class Dungeon {
         this.categoryId = categoryId;
         this.keyId = keyId;
         this.keyDisplayName = keyDisplayName;
-        this.previewItems = new HashMap<>();
+        this.previewSnapshot = PreviewSnapshot.EMPTY;
+        this.dirtyPreviewSlots = new HashSet<>();
         this.questStages = new ArrayList<>();
         this.entryWarp = null;
     }
@@ -182,42 +199,103 @@ public class Dungeon {
     }
 
     /**
-     * Gets preview items for this dungeon.
+     * Gets the current preview snapshot. Snapshots are immutable and can be
+     * shared by any number of viewers.
      *
-     * @return map of slot -> ItemStack
+     * @return The preview snapshot
      */
-    public Map<Integer, ItemStack> getPreviewItems() {
-        return previewItems;
+    public PreviewSnapshot getPreviewSnapshot() {
+        return previewSnapshot;
     }
 
     /**
-     * Sets all preview items for this dungeon.
+     * Sets all preview items for this dungeon as they are stored in the database.
+     * Clears any pending changes. The items are kept without copying and must
+     * not be modified afterwards.
      *
      * @param items map of slot -> ItemStack
      */
     public void setPreviewItems(Map<Integer, ItemStack> items) {
-        this.previewItems = new HashMap<>(items);
+        this.previewSnapshot = PreviewSnapshot.ofShared(items, previewSnapshot.getVersion() + 1);
+        dirtyPreviewSlots.clear();
     }
 
     /**
-     * Sets a single preview item.
+     * Sets a single preview item, marking the slot as changed if the item differs.
      *
      * @param slot inventory slot
      * @param item ItemStack to set (null to remove)
      */
     public void setPreviewItem(int slot, ItemStack item) {
-        if (item == null) {
-            previewItems.remove(slot);
-        } else {
-            previewItems.put(slot, item);
-        }
+        PreviewSnapshot current = previewSnapshot;
+        publishPreview(current.with(slot, item, current.getVersion() + 1));
+    }
+
+    /**
+     * Publishes a new preview snapshot, only marking slots whose contents changed.
+     * Viewers holding the previous snapshot keep seeing it unchanged.
+     *
+     * @param snapshot The new snapshot
+     */
+    public void publishPreview(PreviewSnapshot snapshot) {
+        PreviewSnapshot previous = previewSnapshot;
+        dirtyPreviewSlots.addAll(snapshot.diff(previous).keySet());
+        this.previewSnapshot = snapshot;
     }
 
     /**
      * Clears all preview items.
      */
     public void clearPreviewItems() {
-        previewItems.clear();
+        publishPreview(PreviewSnapshot.of(Collections.emptyMap(), previewSnapshot.getVersion() + 1));
+    }
+
+    /**
+     * Checks if any preview slot changed since the last save.
+     *
+     * @return True if there are unsaved changes
+     */
+    public boolean hasPreviewChanges() {
+        return !dirtyPreviewSlots.isEmpty();
+    }
+
+    /**
+     * Takes the pending preview changes and resets change tracking.
+     * The returned items belong to the published snapshot and must not be modified.
+     *
+     * @return map of changed slot -> new ItemStack, or null for cleared slots
+     */
+    public Map<Integer, ItemStack> drainPreviewChanges() {
+        PreviewSnapshot snapshot = previewSnapshot;
+        Map<Integer, ItemStack> changes = new HashMap<>();
+        for (int slot : dirtyPreviewSlots) {
+            // Slots outside the preview area are never shown or edited, leave their rows alone
+            if (slot >= 0 && slot < PreviewSnapshot.SIZE) {
+                changes.put(slot, snapshot.getItem(slot));
+            }
+        }
+        dirtyPreviewSlots.clear();
+        return changes;
+    }
+
+    /**
+     * Marks preview slots as changed again, e.g. after a failed save.
+     *
+     * @param slots slots to mark
+     */
+    public void markPreviewSlotsDirty(Collection<Integer> slots) {
+        dirtyPreviewSlots.addAll(slots);
+    }
+
+    /**
+     * Takes over the preview items and unsaved changes of the same dungeon from
+     * an older catalog, so a reload does not lose or re-read them.
+     *
+     * @param previous The dungeon being replaced
+     */
+    public void adoptPreview(Dungeon previous) {
+        this.previewSnapshot = previous.previewSnapshot;
+        dirtyPreviewSlots.addAll(previous.dirtyPreviewSlots);
     }
 
     /**
@@ -229,12 +307,29 @@ public class Dungeon {
         return questStages;
     }
 
+    /**
+     * Gets the normalized names of the mobs that advance any stage of this dungeon.
+     *
+     * @return The normalized trigger names, empty if no stage has a trigger mob
+     */
+    public Set<String> getTriggerMobs() {
+        if (triggerMobs != null) return triggerMobs;
+        Set<String> mobs = new HashSet<>();
+        for (QuestStage stage : questStages) {
+            if (stage.getNormalizedTriggerMob() != null) {
+                mobs.add(stage.getNormalizedTriggerMob());
+            }
+        }
+        return mobs;
+    }
+
     /**
      * Adds a quest stage to this dungeon.
      *
      * @param stage stage to add
      */
     public void addQuestStage(QuestStage stage) {
+        checkNotFrozen();
         questStages.add(stage);
     }
 
@@ -253,6 +348,7 @@ public class Dungeon {
      * @param keyId The key ID
      */
     public void setKeyId(String keyId) {
+        checkNotFrozen();
         this.keyId = keyId;
     }
 
@@ -271,6 +367,7 @@ public class Dungeon {
      * @param keyDisplayName The key display name
      */
     public void setKeyDisplayName(String keyDisplayName) {
+        checkNotFrozen();
         this.keyDisplayName = keyDisplayName;
     }
 
@@ -288,6 +385,58 @@ public class Dungeon {
     }
 
     public void setEntryWarp(String entryWarp) {
+        checkNotFrozen();
         this.entryWarp = entryWarp;
     }
+
+    /**
+     * Gets the world and region the dungeon is played in.
+     *
+     * @return The area, or null if the dungeon may be played in any world
+     */
+    public DungeonArea getArea() {
+        return area;
+    }
+
+    public void setArea(DungeonArea area) {
+        checkNotFrozen();
+        this.area = area;
+    }
+
+    /**
+     * Gets how many parties can play this dungeon at the same time.
+     *
+     * @return The number of instances, or 0 to use the configured default
+     */
+    public int getInstances() {
+        return instances;
+    }
+
+    public void setInstances(int instances) {
+        checkNotFrozen();
+        this.instances = instances;
+    }
+
+    /**
+     * Makes the configuration of this dungeon read-only. Called when the dungeon
+     * is published in a {@link DungeonCatalog}; preview items stay editable.
+     */
+    void freeze() {
+        if (frozen) return;
+        questStages = Collections.unmodifiableList(new ArrayList<>(questStages));
+        Set<String> mobs = new HashSet<>();
+        for (QuestStage stage : questStages) {
+            if (stage.getNormalizedTriggerMob() != null) {
+                mobs.add(stage.getNormalizedTriggerMob());
+            }
+        }
+        triggerMobs = Collections.unmodifiableSet(mobs);
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Dungeon " + id + " belongs to a published catalog");
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package maks.com.groupDungeonPlugin.models;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * World a dungeon is played in, optionally limited to a box of blocks.
+ */
+public final class DungeonArea {
+    private final String world;
+    private final boolean bounded;
+    private final int minX, minY, minZ;
+    private final int maxX, maxY, maxZ;
+
+    private DungeonArea(String world, boolean bounded, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.world = world;
+        this.bounded = bounded;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Creates an area covering a whole world.
+     *
+     * @param world The world name
+     * @return The area
+     */
+    public static DungeonArea of(String world) {
+        return new DungeonArea(world, false, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Creates an area covering a box of blocks in a world. The corners may be given in any order.
+     *
+     * @param world The world name
+     * @param from One corner, as x, y, z
+     * @param to The opposite corner, as x, y, z
+     * @return The area
+     */
+    public static DungeonArea of(String world, int[] from, int[] to) {
+        return new DungeonArea(world, true,
+                Math.min(from[0], to[0]), Math.min(from[1], to[1]), Math.min(from[2], to[2]),
+                Math.max(from[0], to[0]), Math.max(from[1], to[1]), Math.max(from[2], to[2]));
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Checks if a location lies in this area.
+     *
+     * @param location The location
+     * @return True if the location is in the area's world and, if bounded, inside the box
+     */
+    public boolean contains(Location location) {
+        World locationWorld = location.getWorld();
+        if (locationWorld == null || !locationWorld.getName().equals(world)) return false;
+        if (!bounded) return true;
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+}
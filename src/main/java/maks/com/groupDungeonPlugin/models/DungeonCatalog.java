@@ -0,0 +1,254 @@
+package maks.com.groupDungeonPlugin.models;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of categories and dungeons loaded from one version of dungeons.yml.
+ * A catalog is never modified after it is published; reloading builds a new one
+ * and swaps it in, while running dungeons keep the Dungeon objects they started with.
+ *
+ * All indexes are built in the constructor, so lookups never scan the dungeon list
+ * and a catalog can be read from any thread.
+ */
+public final class DungeonCatalog {
+    /** Catalog without categories, used before the first load. */
+    public static final DungeonCatalog EMPTY = new DungeonCatalog(new LinkedHashMap<>(), 0L);
+
+    private final Map<String, DungeonCategory> categories;
+    private final Map<String, Dungeon> dungeons;
+    private final Map<String, Map<Integer, List<Dungeon>>> dungeonsByCategoryAndTier;
+    private final Map<Integer, List<Dungeon>> dungeonsByTier;
+    // Required level -> all dungeons requiring at most that level, sorted by level
+    private final NavigableMap<Integer, List<Dungeon>> dungeonsUpToLevel;
+    private final Map<String, List<Dungeon>> dungeonsByKeyId;
+    private final Map<String, List<Dungeon>> dungeonsByTriggerMob;
+    // Worlds dungeons are limited to; every world counts when some dungeon has no world
+    private final Set<String> worlds;
+    private final boolean unscopedDungeons;
+    private final long version;
+
+    /**
+     * Creates a catalog. The categories and their dungeons become read-only.
+     *
+     * @param categories categories in display order, with their dungeons added
+     * @param version The catalog version, increasing with every load
+     */
+    public DungeonCatalog(LinkedHashMap<String, DungeonCategory> categories, long version) {
+        Map<String, Dungeon> byId = new LinkedHashMap<>();
+        Map<String, Map<Integer, List<Dungeon>>> byCategoryAndTier = new HashMap<>();
+        Map<Integer, List<Dungeon>> byTier = new HashMap<>();
+        Map<String, List<Dungeon>> byKeyId = new HashMap<>();
+        Map<String, List<Dungeon>> byTriggerMob = new HashMap<>();
+        List<Dungeon> byLevel = new ArrayList<>();
+        Set<String> dungeonWorlds = new HashSet<>();
+        boolean unscoped = false;
+
+        for (DungeonCategory category : categories.values()) {
+            category.freeze();
+            Map<Integer, List<Dungeon>> categoryTiers = new HashMap<>();
+            for (Dungeon dungeon : category.getDungeons()) {
+                byId.put(dungeon.getId(), dungeon);
+                categoryTiers.computeIfAbsent(dungeon.getTier(), tier -> new ArrayList<>()).add(dungeon);
+                byTier.computeIfAbsent(dungeon.getTier(), tier -> new ArrayList<>()).add(dungeon);
+                byLevel.add(dungeon);
+                if (dungeon.requiresKey()) {
+                    byKeyId.computeIfAbsent(normalize(dungeon.getKeyId()), key -> new ArrayList<>()).add(dungeon);
+                }
+                for (String mob : dungeon.getTriggerMobs()) {
+                    byTriggerMob.computeIfAbsent(mob, key -> new ArrayList<>()).add(dungeon);
+                }
+                if (dungeon.getArea() != null) {
+                    dungeonWorlds.add(dungeon.getArea().getWorld());
+                } else {
+                    unscoped = true;
+                }
+            }
+            byCategoryAndTier.put(category.getId(), freezeLists(categoryTiers));
+        }
+
+        // Each level maps to the cumulative list up to it, so a range lookup is a single floor search
+        byLevel.sort((a, b) -> Integer.compare(a.getRequiredLevel(), b.getRequiredLevel()));
+        NavigableMap<Integer, List<Dungeon>> upToLevel = new TreeMap<>();
+        for (int i = 0; i < byLevel.size(); i++) {
+            int level = byLevel.get(i).getRequiredLevel();
+            if (i + 1 == byLevel.size() || byLevel.get(i + 1).getRequiredLevel() != level) {
+                upToLevel.put(level, Collections.unmodifiableList(new ArrayList<>(byLevel.subList(0, i + 1))));
+            }
+        }
+
+        this.categories = Collections.unmodifiableMap(new LinkedHashMap<>(categories));
+        this.dungeons = Collections.unmodifiableMap(byId);
+        this.dungeonsByCategoryAndTier = Collections.unmodifiableMap(byCategoryAndTier);
+        this.dungeonsByTier = freezeLists(byTier);
+        this.dungeonsUpToLevel = Collections.unmodifiableNavigableMap(upToLevel);
+        this.dungeonsByKeyId = freezeLists(byKeyId);
+        this.dungeonsByTriggerMob = freezeLists(byTriggerMob);
+        this.worlds = Collections.unmodifiableSet(dungeonWorlds);
+        this.unscopedDungeons = unscoped;
+        this.version = version;
+    }
+
+    private static <K> Map<K, List<Dungeon>> freezeLists(Map<K, List<Dungeon>> lists) {
+        Map<K, List<Dungeon>> frozen = new HashMap<>();
+        for (Map.Entry<K, List<Dungeon>> entry : lists.entrySet()) {
+            frozen.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    private static String normalize(String key) {
+        return key.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalizes a mob name for comparison with stage trigger names: colors are
+     * removed and case is ignored.
+     *
+     * @param name The mob name
+     * @return The normalized name
+     */
+    public static String normalizeMobName(String name) {
+        return ChatColor.stripColor(name.replace("&", "§")).trim().toLowerCase(Locale.ROOT);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets all categories in display order.
+     *
+     * @return unmodifiable map of category ID -> category
+     */
+    public Map<String, DungeonCategory> getCategories() {
+        return categories;
+    }
+
+    public DungeonCategory getCategory(String categoryId) {
+        return categories.get(categoryId);
+    }
+
+    /**
+     * Gets all dungeons.
+     *
+     * @return unmodifiable map of full dungeon ID -> dungeon, in display order
+     */
+    public Map<String, Dungeon> getDungeons() {
+        return dungeons;
+    }
+
+    public Dungeon getDungeon(String dungeonId) {
+        return dungeons.get(dungeonId);
+    }
+
+    /**
+     * Gets the dungeons of a category grouped by tier.
+     *
+     * @param categoryId The category ID
+     * @return unmodifiable map of tier -> dungeons in configuration order, empty for unknown categories
+     */
+    public Map<Integer, List<Dungeon>> getDungeonsByTier(String categoryId) {
+        return dungeonsByCategoryAndTier.getOrDefault(categoryId, Collections.emptyMap());
+    }
+
+    /**
+     * Gets the dungeons of a tier across all categories.
+     *
+     * @param tier The tier
+     * @return The dungeons, empty if the tier has none
+     */
+    public List<Dungeon> getDungeonsByTier(int tier) {
+        return dungeonsByTier.getOrDefault(tier, Collections.emptyList());
+    }
+
+    /**
+     * Gets the dungeons a player of the given level meets the level requirement for.
+     *
+     * @param level The player level
+     * @return The dungeons sorted by required level
+     */
+    public List<Dungeon> getDungeonsUpToLevel(int level) {
+        Map.Entry<Integer, List<Dungeon>> entry = dungeonsUpToLevel.floorEntry(level);
+        return entry != null ? entry.getValue() : Collections.emptyList();
+    }
+
+    /**
+     * Gets the dungeons whose required level lies in a range.
+     *
+     * @param minLevel The lowest required level, inclusive
+     * @param maxLevel The highest required level, inclusive
+     * @return The dungeons sorted by required level
+     */
+    public List<Dungeon> getDungeonsByLevelRange(int minLevel, int maxLevel) {
+        List<Dungeon> upToMax = getDungeonsUpToLevel(maxLevel);
+        List<Dungeon> belowMin = getDungeonsUpToLevel(minLevel - 1);
+        if (belowMin.size() >= upToMax.size()) {
+            return Collections.emptyList();
+        }
+        return upToMax.subList(belowMin.size(), upToMax.size());
+    }
+
+    /**
+     * Gets the dungeons that require a key.
+     *
+     * @param keyId The key ID, case-insensitive
+     * @return The dungeons, empty if no dungeon uses the key
+     */
+    public List<Dungeon> getDungeonsByKeyId(String keyId) {
+        if (keyId == null) return Collections.emptyList();
+        return dungeonsByKeyId.getOrDefault(normalize(keyId), Collections.emptyList());
+    }
+
+    /**
+     * Gets the dungeons with a stage triggered by killing a mob.
+     *
+     * @param mobName The mob name, normalized with {@link #normalizeMobName(String)}
+     * @return The dungeons, empty if no stage is triggered by the mob
+     */
+    public List<Dungeon> getDungeonsByTriggerMob(String mobName) {
+        return dungeonsByTriggerMob.getOrDefault(mobName, Collections.emptyList());
+    }
+
+    /**
+     * Checks if any dungeon can be played in a world.
+     *
+     * @param world The world name
+     * @return True if a dungeon is limited to the world or some dungeon has no world
+     */
+    public boolean isDungeonWorld(String world) {
+        return unscopedDungeons || worlds.contains(world);
+    }
+
+    /**
+     * Checks if a dungeon is limited to a world. Unlike {@link #isDungeonWorld(String)},
+     * dungeons without a world do not count.
+     *
+     * @param world The world name
+     * @return True if some dungeon sets the world
+     */
+    public boolean isScopedDungeonWorld(String world) {
+        return worlds.contains(world);
+    }
+
+    /**
+     * Checks if killing a mob can advance any stage in this catalog.
+     *
+     * @param mobName The mob name, normalized with {@link #normalizeMobName(String)}
+     * @return True if some stage is triggered by the mob
+     */
+    public boolean isTriggerMob(String mobName) {
+        return dungeonsByTriggerMob.containsKey(mobName);
+    }
+}
@@ -5,7 +5,10 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a category of dungeons (e.g., Mythology, Ancient Civilizations, etc.).
@@ -16,7 +19,9 @@ public class DungeonCategory {
     private final String name;          // Category name in English
     private final String description;   // Category description in English
     private final Material icon;        // GUI icon
-    private final List<Dungeon> dungeons; // List of dungeons in this category
+    private final Map<String, Dungeon> dungeons; // Dungeons in this category by ID, in configuration order
+    private List<Dungeon> dungeonList;  // Cached view of the dungeons in order
+    private boolean frozen;
 
     /**
      * Creates a new dungeon category.
@@ -31,7 +36,7 @@ public class DungeonCategory {
         this.name = name;
         this.description = description;
         this.icon = icon;
-        this.dungeons = new ArrayList<>();
+        this.dungeons = new LinkedHashMap<>();
     }
 
     /**
@@ -73,10 +78,17 @@ public class DungeonCategory {
     /**
      * Gets all dungeons in this category.
      *
-     * @return A list of dungeons
+     * @return An unmodifiable list of dungeons in configuration order
      */
     public List<Dungeon> getDungeons() {
-        return dungeons;
+        List<Dungeon> list = dungeonList;
+        if (list == null) {
+            list = Collections.unmodifiableList(new ArrayList<>(dungeons.values()));
+            if (frozen) {
+                dungeonList = list;
+            }
+        }
+        return list;
     }
 
     /**
@@ -85,7 +97,8 @@ public class DungeonCategory {
      * @param dungeon The dungeon to add
      */
     public void addDungeon(Dungeon dungeon) {
-        dungeons.add(dungeon);
+        checkNotFrozen();
+        dungeons.put(dungeon.getId(), dungeon);
     }
 
     /**
@@ -94,7 +107,8 @@ public class DungeonCategory {
      * @param dungeonId The ID of the dungeon to remove
      */
     public void removeDungeon(String dungeonId) {
-        dungeons.removeIf(dungeon -> dungeon.getId().equals(dungeonId));
+        checkNotFrozen();
+        dungeons.remove(dungeonId);
     }
 
     /**
@@ -104,10 +118,26 @@ public class DungeonCategory {
      * @return The dungeon, or null if not found
      */
     public Dungeon getDungeon(String dungeonId) {
-        return dungeons.stream()
-                .filter(dungeon -> dungeon.getId().equals(dungeonId))
-                .findFirst()
-                .orElse(null);
+        return dungeons.get(dungeonId);
+    }
+
+    /**
+     * Makes this category and its dungeons read-only. Called when the category
+     * is published in a {@link DungeonCatalog}.
+     */
+    void freeze() {
+        if (frozen) return;
+        for (Dungeon dungeon : dungeons.values()) {
+            dungeon.freeze();
+        }
+        dungeonList = Collections.unmodifiableList(new ArrayList<>(dungeons.values()));
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Category " + id + " belongs to a published catalog");
+        }
     }
 
     /**
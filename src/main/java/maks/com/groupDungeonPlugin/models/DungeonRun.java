@@ -0,0 +1,189 @@
+package maks.com.groupDungeonPlugin.models;
+
+import maks.com.groupDungeonPlugin.utils.TimerWheel;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * One party's run through a dungeon.
+ *
+ * The run keeps the Dungeon it was started with, so a reload of dungeons.yml does
+ * not change a dungeon that is already being played. Only accessed from the main thread.
+ */
+public class DungeonRun {
+    private final UUID runId;
+    private final Dungeon dungeon;
+    private final UUID leaderId;
+    private final Set<UUID> memberIds;
+    private final long startTime;
+    private int stageIndex;
+    private ItemStack paidKey;
+    private byte[] paidKeyBlob;
+    // Timers for the whole run and for the current stage
+    private final List<TimerWheel.Timeout> runTimers = new ArrayList<>();
+    private final List<TimerWheel.Timeout> stageTimers = new ArrayList<>();
+
+    /**
+     * Creates a run at its first stage.
+     *
+     * @param dungeon The dungeon being run
+     * @param leaderId The party leader
+     * @param memberIds The party members, including the leader
+     */
+    public DungeonRun(Dungeon dungeon, UUID leaderId, Set<UUID> memberIds) {
+        this(UUID.randomUUID(), dungeon, leaderId, memberIds, System.currentTimeMillis(), 0);
+    }
+
+    /**
+     * Creates a run with known state, e.g. when restoring it.
+     *
+     * @param runId The run ID
+     * @param dungeon The dungeon being run
+     * @param leaderId The party leader
+     * @param memberIds The party members, including the leader
+     * @param startTime When the run started, in epoch milliseconds
+     * @param stageIndex The index of the next stage
+     */
+    public DungeonRun(UUID runId, Dungeon dungeon, UUID leaderId, Set<UUID> memberIds, long startTime, int stageIndex) {
+        this.runId = runId;
+        this.dungeon = dungeon;
+        this.leaderId = leaderId;
+        this.memberIds = Collections.unmodifiableSet(new LinkedHashSet<>(memberIds));
+        this.startTime = startTime;
+        this.stageIndex = stageIndex;
+    }
+
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public Dungeon getDungeon() {
+        return dungeon;
+    }
+
+    public UUID getLeaderId() {
+        return leaderId;
+    }
+
+    /**
+     * Gets the members who entered the dungeon, including the leader.
+     *
+     * @return unmodifiable set of member UUIDs
+     */
+    public Set<UUID> getMemberIds() {
+        return memberIds;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets how long the run has been going.
+     *
+     * @return The elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Gets the index of the next stage to complete.
+     *
+     * @return The stage index, equal to the number of stages once all are done
+     */
+    public int getStageIndex() {
+        return stageIndex;
+    }
+
+    public void setStageIndex(int stageIndex) {
+        this.stageIndex = stageIndex;
+    }
+
+    /**
+     * Gets the stage the party is currently on.
+     *
+     * @return The stage, or null if all stages are done
+     */
+    public QuestStage getCurrentStage() {
+        return stageIndex < dungeon.getQuestStages().size() ? dungeon.getQuestStages().get(stageIndex) : null;
+    }
+
+    /**
+     * Gets the key the leader paid to start the run, given back if the run
+     * cannot be restored after a restart.
+     *
+     * @return The key, or null if the dungeon needs none
+     */
+    public ItemStack getPaidKey() {
+        return paidKey;
+    }
+
+    /**
+     * Gets the paid key as written to the run journal, serialized once when
+     * the run started.
+     *
+     * @return The serialized key, or null if the dungeon needs none or it could not be serialized
+     */
+    public byte[] getPaidKeyBlob() {
+        return paidKeyBlob;
+    }
+
+    public void setPaidKey(ItemStack paidKey, byte[] paidKeyBlob) {
+        this.paidKey = paidKey;
+        this.paidKeyBlob = paidKeyBlob;
+    }
+
+    public void addRunTimer(TimerWheel.Timeout timer) {
+        runTimers.add(timer);
+    }
+
+    public void addStageTimer(TimerWheel.Timeout timer) {
+        stageTimers.add(timer);
+    }
+
+    /**
+     * Cancels the timers of the current stage.
+     */
+    public void cancelStageTimers() {
+        for (TimerWheel.Timeout timer : stageTimers) {
+            timer.cancel();
+        }
+        stageTimers.clear();
+    }
+
+    /**
+     * Cancels all timers of this run.
+     */
+    public void cancelTimers() {
+        for (TimerWheel.Timeout timer : runTimers) {
+            timer.cancel();
+        }
+        runTimers.clear();
+        cancelStageTimers();
+    }
+
+    /**
+     * Gets the state of this run as plain values, for logging or storage.
+     *
+     * @return map of field name -> value
+     */
+    public Map<String, Object> serialize() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("runId", runId.toString());
+        data.put("dungeon", dungeon.getId());
+        data.put("leader", leaderId.toString());
+        data.put("members", memberIds.stream().map(UUID::toString).toArray(String[]::new));
+        data.put("stage", stageIndex);
+        data.put("startTime", startTime);
+        return data;
+    }
+}
@@ -0,0 +1,159 @@
+package maks.com.groupDungeonPlugin.models;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable, versioned set of reward preview items for a dungeon.
+ *
+ * The items are private copies that are never modified after construction, so
+ * any number of viewers can read a snapshot without cloning. Edits create a new
+ * snapshot which is then published on the dungeon.
+ */
+public final class PreviewSnapshot {
+    /** Number of preview slots (the top five rows of the preview GUI). */
+    public static final int SIZE = 45;
+
+    /** Snapshot without items. */
+    public static final PreviewSnapshot EMPTY = new PreviewSnapshot(new ItemStack[SIZE], 0L);
+
+    private final ItemStack[] items;
+    private final long version;
+
+    private PreviewSnapshot(ItemStack[] items, long version) {
+        this.items = items;
+        this.version = version;
+    }
+
+    /**
+     * Creates a snapshot from items keyed by slot. Items are copied, slots outside
+     * the preview area are ignored.
+     *
+     * @param items map of slot -> ItemStack
+     * @param version The snapshot version
+     * @return The snapshot
+     */
+    public static PreviewSnapshot of(Map<Integer, ItemStack> items, long version) {
+        ItemStack[] copy = new ItemStack[SIZE];
+        for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
+            int slot = entry.getKey();
+            if (slot >= 0 && slot < SIZE && entry.getValue() != null) {
+                copy[slot] = entry.getValue().clone();
+            }
+        }
+        return new PreviewSnapshot(copy, version);
+    }
+
+    /**
+     * Creates a snapshot that takes over items keyed by slot without copying
+     * them, for items that are already shared and never modified, such as the
+     * templates of the item cache. Slots outside the preview area are ignored.
+     *
+     * @param items map of slot -> ItemStack
+     * @param version The snapshot version
+     * @return The snapshot
+     */
+    static PreviewSnapshot ofShared(Map<Integer, ItemStack> items, long version) {
+        ItemStack[] shared = new ItemStack[SIZE];
+        for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
+            int slot = entry.getKey();
+            if (slot >= 0 && slot < SIZE && entry.getValue() != null) {
+                shared[slot] = entry.getValue();
+            }
+        }
+        return new PreviewSnapshot(shared, version);
+    }
+
+    /**
+     * Creates a snapshot from the first {@link #SIZE} slots of an inventory. Items are copied.
+     *
+     * @param inventory The inventory to read
+     * @param version The snapshot version
+     * @return The snapshot
+     */
+    public static PreviewSnapshot of(Inventory inventory, long version) {
+        ItemStack[] copy = new ItemStack[SIZE];
+        for (int slot = 0; slot < SIZE; slot++) {
+            ItemStack item = inventory.getItem(slot);
+            if (item != null && !item.getType().isAir()) {
+                copy[slot] = item.clone();
+            }
+        }
+        return new PreviewSnapshot(copy, version);
+    }
+
+    /**
+     * Creates a copy of this snapshot with one slot replaced.
+     *
+     * @param slot The slot to replace
+     * @param item The new item, or null to clear the slot
+     * @param version The version of the new snapshot
+     * @return The new snapshot
+     */
+    public PreviewSnapshot with(int slot, ItemStack item, long version) {
+        ItemStack[] copy = items.clone();
+        copy[slot] = item != null ? item.clone() : null;
+        return new PreviewSnapshot(copy, version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the item in a slot. The returned item is shared and must not be modified.
+     *
+     * @param slot The slot
+     * @return The item, or null if the slot is empty
+     */
+    public ItemStack getItem(int slot) {
+        return items[slot];
+    }
+
+    /**
+     * Counts the non-empty slots.
+     *
+     * @return The number of items
+     */
+    public int getItemCount() {
+        int count = 0;
+        for (ItemStack item : items) {
+            if (item != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the items into the first {@link #SIZE} slots of an inventory.
+     * The inventory stores its own copies, so this snapshot is never modified.
+     *
+     * @param inventory The inventory to fill
+     */
+    public void applyTo(Inventory inventory) {
+        for (int slot = 0; slot < SIZE; slot++) {
+            if (items[slot] != null) {
+                inventory.setItem(slot, items[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets the slots whose items differ from another snapshot.
+     *
+     * @param other The snapshot to compare with
+     * @return map of changed slot -> item in this snapshot, or null for cleared slots
+     */
+    public Map<Integer, ItemStack> diff(PreviewSnapshot other) {
+        Map<Integer, ItemStack> changes = new HashMap<>();
+        for (int slot = 0; slot < SIZE; slot++) {
+            if (!Objects.equals(items[slot], other.items[slot])) {
+                changes.put(slot, items[slot]);
+            }
+        }
+        return changes;
+    }
+}
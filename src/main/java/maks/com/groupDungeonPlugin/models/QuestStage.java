@@ -8,12 +8,22 @@ public class QuestStage {
     private final String description;
     private final String warp;
     private final String triggerMob;
+    // Trigger name without colors and case, interned so every stage with the same mob shares one string
+    private final String normalizedTriggerMob;
+    // Seconds the party has to complete the stage, 0 for no limit
+    private final int timeLimitSeconds;
 
-    public QuestStage(int stageNumber, String description, String warp, String triggerMob) {
+    public QuestStage(int stageNumber, String description, String warp, String triggerMob, int timeLimitSeconds) {
         this.stageNumber = stageNumber;
         this.description = description;
         this.warp = warp;
         this.triggerMob = triggerMob;
+        this.normalizedTriggerMob = triggerMob != null ? DungeonCatalog.normalizeMobName(triggerMob).intern() : null;
+        this.timeLimitSeconds = timeLimitSeconds;
+    }
+
+    public QuestStage(int stageNumber, String description, String warp, String triggerMob) {
+        this(stageNumber, description, warp, triggerMob, 0);
     }
 
     public QuestStage(int stageNumber, String description, String warp) {
@@ -35,5 +45,23 @@ public class QuestStage {
     public String getTriggerMob() {
         return triggerMob;
     }
+
+    /**
+     * Gets the trigger mob name normalized with {@link DungeonCatalog#normalizeMobName(String)}.
+     *
+     * @return The normalized name, or null if no mob triggers this stage
+     */
+    public String getNormalizedTriggerMob() {
+        return normalizedTriggerMob;
+    }
+
+    /**
+     * Gets the time the party has to complete this stage.
+     *
+     * @return The limit in seconds, 0 for no limit
+     */
+    public int getTimeLimitSeconds() {
+        return timeLimitSeconds;
+    }
 }
 
@@ -0,0 +1,61 @@
+package maks.com.groupDungeonPlugin.utils;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores items with Bukkit object streams, optionally deflate-compressed.
+ * Fallback for servers where Paper's NBT serialization is not wanted.
+ */
+public final class BukkitStreamItemCodec implements ItemCodec {
+    public static final byte ID_RAW = 2;
+    public static final byte ID_DEFLATED = 3;
+
+    private final boolean compressed;
+
+    /**
+     * Creates a Bukkit stream codec.
+     *
+     * @param compressed whether to deflate the serialized stream
+     */
+    public BukkitStreamItemCodec(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    @Override
+    public byte getId() {
+        return compressed ? ID_DEFLATED : ID_RAW;
+    }
+
+    @Override
+    public byte[] encode(ItemStack item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        OutputStream target = compressed ? new DeflaterOutputStream(bytes) : bytes;
+        try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(target)) {
+            dataOutput.writeObject(item);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public ItemStack decode(byte[] data) throws IOException {
+        InputStream source = new ByteArrayInputStream(data);
+        if (compressed) {
+            source = new InflaterInputStream(source);
+        }
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(source)) {
+            return (ItemStack) dataInput.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Could not deserialize item", e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package maks.com.groupDungeonPlugin.utils;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Central debug logging facade.
+ *
+ * Levels are read from config.yml: {@code debug} sets the default level for every
+ * subsystem and {@code debug-levels} overrides it per subsystem. Messages are passed
+ * as suppliers and only built when their level is enabled; hot paths should also
+ * guard with {@link #isEnabled(Subsystem)} to avoid allocating the supplier itself.
+ * Built messages are written to the plugin logger from a background thread.
+ */
+public final class DebugLogger {
+
+    /**
+     * Parts of the plugin with their own debug level.
+     */
+    public enum Subsystem {
+        DUNGEON, DATABASE, PARTY, PORTAL, GUI, COMMAND;
+
+        private final String configKey = name().toLowerCase();
+    }
+
+    /**
+     * Debug verbosity. TRACE adds per-item detail such as one line per party member.
+     */
+    public enum Level {
+        OFF, INFO, TRACE
+    }
+
+    private static final Level[] levels = new Level[Subsystem.values().length];
+    private static final AtomicLong droppedMessages = new AtomicLong();
+    private static volatile Logger logger = Logger.getLogger("GroupDungeonPlugin");
+    private static ThreadPoolExecutor dispatcher;
+
+    static {
+        Arrays.fill(levels, Level.OFF);
+    }
+
+    private DebugLogger() {
+    }
+
+    /**
+     * Reads debug levels from the plugin configuration and starts the log dispatcher.
+     *
+     * @param plugin owning plugin
+     */
+    public static synchronized void init(JavaPlugin plugin) {
+        logger = plugin.getLogger();
+        reload(plugin.getConfig());
+
+        if (dispatcher == null) {
+            dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(1024), runnable -> {
+                        Thread thread = new Thread(runnable, "GroupDungeon-Log");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    /**
+     * Re-reads debug levels from the configuration.
+     *
+     * @param config plugin configuration
+     */
+    public static void reload(FileConfiguration config) {
+        Level defaultLevel = parseLevel(config.get("debug"), Level.OFF);
+        ConfigurationSection overrides = config.getConfigurationSection("debug-levels");
+        for (Subsystem subsystem : Subsystem.values()) {
+            Level level = defaultLevel;
+            if (overrides != null && overrides.contains(subsystem.configKey)) {
+                level = parseLevel(overrides.get(subsystem.configKey), defaultLevel);
+            }
+            levels[subsystem.ordinal()] = level;
+        }
+    }
+
+    private static Level parseLevel(Object value, Level fallback) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? Level.INFO : Level.OFF;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() >= 1 ? Level.INFO : Level.OFF;
+        }
+        if (value != null) {
+            try {
+                return Level.valueOf(value.toString().trim().toUpperCase());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Flushes pending messages and stops the dispatcher.
+     */
+    public static synchronized void shutdown() {
+        if (dispatcher == null) return;
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher = null;
+        if (droppedMessages.get() > 0) {
+            logger.warning("Dropped " + droppedMessages.get() + " debug messages because the log queue was full");
+        }
+    }
+
+    /**
+     * Checks if debug output is enabled for a subsystem.
+     *
+     * @param subsystem the subsystem
+     * @return True if INFO or TRACE is enabled
+     */
+    public static boolean isEnabled(Subsystem subsystem) {
+        return levels[subsystem.ordinal()] != Level.OFF;
+    }
+
+    /**
+     * Checks if per-item trace output is enabled for a subsystem.
+     *
+     * @param subsystem the subsystem
+     * @return True if TRACE is enabled
+     */
+    public static boolean isTraceEnabled(Subsystem subsystem) {
+        return levels[subsystem.ordinal()] == Level.TRACE;
+    }
+
+    /**
+     * Logs a debug message if the subsystem's level is INFO or higher.
+     *
+     * @param subsystem the subsystem
+     * @param message supplier building the message on the calling thread
+     */
+    public static void debug(Subsystem subsystem, Supplier<String> message) {
+        if (isEnabled(subsystem)) {
+            dispatch(subsystem, message.get());
+        }
+    }
+
+    /**
+     * Logs a debug message if the subsystem's level is TRACE.
+     *
+     * @param subsystem the subsystem
+     * @param message supplier building the message on the calling thread
+     */
+    public static void trace(Subsystem subsystem, Supplier<String> message) {
+        if (isTraceEnabled(subsystem)) {
+            dispatch(subsystem, message.get());
+        }
+    }
+
+    private static void dispatch(Subsystem subsystem, String message) {
+        String line = "[" + subsystem.configKey + "] " + message;
+        ThreadPoolExecutor executor = dispatcher;
+        if (executor == null) {
+            logger.info(line);
+            return;
+        }
+        try {
+            executor.execute(() -> logger.info(line));
+        } catch (RejectedExecutionException e) {
+            droppedMessages.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package maks.com.groupDungeonPlugin.utils;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * Binary format for storing ItemStacks.
+ * Each codec has a unique id that is written into the blob header so stored items
+ * can be decoded even after the default codec changes.
+ */
+public interface ItemCodec {
+
+    /**
+     * Gets the id written into the blob header.
+     *
+     * @return codec id, unique among registered codecs
+     */
+    byte getId();
+
+    /**
+     * Encodes an item without the blob header.
+     *
+     * @param item the item to encode
+     * @return encoded bytes
+     * @throws IOException if the item cannot be encoded
+     */
+    byte[] encode(ItemStack item) throws IOException;
+
+    /**
+     * Decodes an item from bytes produced by {@link #encode(ItemStack)}.
+     *
+     * @param data encoded bytes
+     * @return the decoded item
+     * @throws IOException if the data cannot be decoded
+     */
+    ItemStack decode(byte[] data) throws IOException;
+}
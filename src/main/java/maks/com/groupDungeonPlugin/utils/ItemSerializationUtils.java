@@ -7,18 +7,119 @@ import org.bukkit.util.io.BukkitObjectOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 
 /**
- * Utility class for serializing and deserializing ItemStacks to Base64 strings.
+ * Utility class for serializing and deserializing ItemStacks.
+ *
+ * Items are stored as binary blobs with a small header:
+ * <pre>
+ *   byte 0: 0x00 marker (never produced by Base64, which identifies legacy blobs)
+ *   byte 1: header version
+ *   byte 2: {@link ItemCodec} id
+ *   rest:   codec payload
+ * </pre>
+ * Blobs without the marker are legacy Base64 Java-serialized items.
  */
 public final class ItemSerializationUtils {
+    private static final byte MARKER = 0x00;
+    private static final byte HEADER_VERSION = 1;
+    private static final int HEADER_SIZE = 3;
+
+    private static final ItemCodec[] CODECS = new ItemCodec[256];
+    private static volatile ItemCodec defaultCodec;
+
+    static {
+        registerCodec(new PaperItemCodec());
+        registerCodec(new BukkitStreamItemCodec(false));
+        registerCodec(new BukkitStreamItemCodec(true));
+        defaultCodec = CODECS[PaperItemCodec.ID & 0xFF];
+    }
 
     private ItemSerializationUtils() {
     }
 
     /**
-     * Serializes an ItemStack to a Base64 string.
+     * Registers a codec so blobs carrying its id can be decoded.
+     *
+     * @param codec the codec to register
+     */
+    public static synchronized void registerCodec(ItemCodec codec) {
+        CODECS[codec.getId() & 0xFF] = codec;
+    }
+
+    /**
+     * Sets the codec used for newly encoded items. The codec is registered if needed.
+     *
+     * @param codec the codec to use
+     */
+    public static void setDefaultCodec(ItemCodec codec) {
+        registerCodec(codec);
+        defaultCodec = codec;
+    }
+
+    /**
+     * Encodes an ItemStack with the default codec.
+     *
+     * @param item the ItemStack to encode
+     * @return the blob including its header, or null on failure
+     */
+    public static byte[] encodeItem(ItemStack item) {
+        ItemCodec codec = defaultCodec;
+        try {
+            byte[] payload = codec.encode(item);
+            byte[] blob = new byte[HEADER_SIZE + payload.length];
+            blob[0] = MARKER;
+            blob[1] = HEADER_VERSION;
+            blob[2] = codec.getId();
+            System.arraycopy(payload, 0, blob, HEADER_SIZE, payload.length);
+            return blob;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes an ItemStack from a blob in either the binary or the legacy Base64 format.
+     *
+     * @param blob the stored blob
+     * @return the ItemStack or null on failure
+     */
+    public static ItemStack decodeItem(byte[] blob) {
+        if (blob == null || blob.length == 0) {
+            return null;
+        }
+        if (isLegacyFormat(blob)) {
+            return deserializeItem(new String(blob, StandardCharsets.US_ASCII));
+        }
+        if (blob.length < HEADER_SIZE || blob[1] != HEADER_VERSION) {
+            return null;
+        }
+        ItemCodec codec = CODECS[blob[2] & 0xFF];
+        if (codec == null) {
+            return null;
+        }
+        try {
+            return codec.decode(Arrays.copyOfRange(blob, HEADER_SIZE, blob.length));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a blob is stored in the legacy Base64 format.
+     *
+     * @param blob the stored blob
+     * @return True if the blob has no binary header
+     */
+    public static boolean isLegacyFormat(byte[] blob) {
+        return blob.length > 0 && blob[0] != MARKER;
+    }
+
+    /**
+     * Serializes an ItemStack to a Base64 string (legacy format).
      *
      * @param item the ItemStack to serialize
      * @return the Base64 string or null on failure
@@ -36,21 +137,20 @@ public final class ItemSerializationUtils {
     }
 
     /**
-     * Deserializes an ItemStack from a Base64 string.
+     * Deserializes an ItemStack from a Base64 string (legacy format).
      *
      * @param data the Base64 data
      * @return the ItemStack or null on failure
      */
     public static ItemStack deserializeItem(String data) {
         try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(data));
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(data.trim()));
             BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
             ItemStack item = (ItemStack) dataInput.readObject();
             dataInput.close();
             return item;
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
             return null;
         }
     }
 }
-
@@ -0,0 +1,120 @@
+package maks.com.groupDungeonPlugin.utils;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interning cache of decoded items keyed by blob content.
+ * Identical blobs are decoded once and every read returns the same shared
+ * template, which callers must not modify. Safe to use from any thread.
+ */
+public final class ItemTemplateCache {
+    private final ConcurrentHashMap<BlobKey, ItemStack> templates = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries maximum number of templates kept; further blobs are decoded but not cached
+     */
+    public ItemTemplateCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Decodes a blob, reusing the template of an identical blob when present.
+     *
+     * @param blob the stored blob
+     * @return the shared decoded item, or null if it cannot be decoded
+     */
+    public ItemStack decode(byte[] blob) {
+        if (blob == null) {
+            return null;
+        }
+        BlobKey key = new BlobKey(blob);
+        ItemStack template = templates.get(key);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+
+        misses.increment();
+        ItemStack decoded = ItemSerializationUtils.decodeItem(blob);
+        if (decoded == null) {
+            return null;
+        }
+        if (templates.size() < maxEntries) {
+            ItemStack existing = templates.putIfAbsent(key, decoded);
+            if (existing != null) {
+                decoded = existing;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Drops all templates. Counters are kept.
+     */
+    public void clear() {
+        templates.clear();
+    }
+
+    /**
+     * @return number of cached templates
+     */
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * @return number of decodes served from a template
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of decodes that had to deserialize the blob
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return short human readable summary of the cache
+     */
+    public String getStats() {
+        return "templates=" + templates.size() + ", hits=" + hits.sum() + ", misses=" + misses.sum();
+    }
+
+    /**
+     * Blob wrapper with a precomputed content hash; equality compares the full content.
+     */
+    private static final class BlobKey {
+        private final byte[] data;
+        private final int hash;
+
+        private BlobKey(byte[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlobKey)) return false;
+            BlobKey other = (BlobKey) o;
+            return hash == other.hash && Arrays.equals(data, other.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
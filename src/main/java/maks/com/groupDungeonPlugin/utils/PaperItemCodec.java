@@ -0,0 +1,37 @@
+package maks.com.groupDungeonPlugin.utils;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * Stores items as Paper's compressed NBT bytes ({@link ItemStack#serializeAsBytes()}).
+ * The NBT payload is already gzip-compressed and carries its data version,
+ * so items are upgraded by the server when loaded after a Minecraft update.
+ */
+public final class PaperItemCodec implements ItemCodec {
+    public static final byte ID = 1;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(ItemStack item) throws IOException {
+        try {
+            return item.serializeAsBytes();
+        } catch (RuntimeException e) {
+            throw new IOException("Could not serialize item " + item.getType(), e);
+        }
+    }
+
+    @Override
+    public ItemStack decode(byte[] data) throws IOException {
+        try {
+            return ItemStack.deserializeBytes(data);
+        } catch (RuntimeException e) {
+            throw new IOException("Could not deserialize item", e);
+        }
+    }
+}
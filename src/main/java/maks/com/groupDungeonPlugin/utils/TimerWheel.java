@@ -0,0 +1,197 @@
+package maks.com.groupDungeonPlugin.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Hashed timing wheel that runs many delayed actions from a single repeating task.
+ *
+ * Timers are hashed into a fixed ring of slots by their due time; each step of
+ * the wheel only visits the timers in one slot, and scheduling or cancelling a
+ * timer is constant time. Timers further away than one turn of the wheel wait
+ * for the required number of turns in their slot. The task only runs while
+ * timers are pending. Only accessed from the main thread.
+ */
+public final class TimerWheel {
+    // Number of slots, a power of two so the slot index is a mask
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final Plugin plugin;
+    private final long ticksPerSlot;
+    private final Timeout[] slots = new Timeout[WHEEL_SIZE];
+    private int cursor;
+    // Server tick of the last step, so delays count from the schedule call rather than the step
+    private int lastStepTick;
+    private int pending;
+    private BukkitTask task;
+
+    /**
+     * Creates a wheel.
+     *
+     * @param plugin The plugin that owns the task
+     * @param ticksPerSlot Server ticks per step of the wheel, the resolution of its timers
+     */
+    public TimerWheel(Plugin plugin, long ticksPerSlot) {
+        this.plugin = plugin;
+        this.ticksPerSlot = Math.max(1L, ticksPerSlot);
+    }
+
+    /**
+     * Runs an action after a delay, rounded up to the wheel's resolution, so it
+     * never runs early.
+     *
+     * @param delayTicks The delay in server ticks
+     * @param action The action
+     * @return A handle to cancel the timer
+     */
+    public Timeout schedule(long delayTicks, Runnable action) {
+        if (task == null) {
+            lastStepTick = Bukkit.getCurrentTick();
+        }
+        // Part of the current step has already passed
+        long elapsed = Math.max(0, Bukkit.getCurrentTick() - lastStepTick);
+        long steps = Math.max(1L, (Math.max(0L, delayTicks) + elapsed + ticksPerSlot - 1) / ticksPerSlot);
+        Timeout timeout = new Timeout(this, action);
+        timeout.slot = (int) ((cursor + steps) & MASK);
+        timeout.rounds = (steps - 1) / WHEEL_SIZE;
+        link(timeout);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::step, ticksPerSlot, ticksPerSlot);
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of timers that have neither run nor been cancelled.
+     *
+     * @return The number of pending timers
+     */
+    public int size() {
+        return pending;
+    }
+
+    /**
+     * Cancels all timers and stops the task.
+     */
+    public void stop() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            Timeout timeout = slots[i];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.cancelled = true;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout = next;
+            }
+            slots[i] = null;
+        }
+        pending = 0;
+        stopTask();
+    }
+
+    private void step() {
+        cursor = (cursor + 1) & MASK;
+        lastStepTick = Bukkit.getCurrentTick();
+
+        // Take the due timers out first, so actions may schedule or cancel other timers
+        List<Timeout> due = null;
+        Timeout timeout = slots[cursor];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                unlink(timeout);
+                if (due == null) due = new ArrayList<>();
+                due.add(timeout);
+            }
+            timeout = next;
+        }
+
+        if (due != null) {
+            for (Timeout expired : due) {
+                if (expired.cancelled) continue;
+                expired.cancelled = true;
+                try {
+                    expired.action.run();
+                } catch (RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "Dungeon timer failed", e);
+                }
+            }
+        }
+        if (pending == 0) {
+            stopTask();
+        }
+    }
+
+    private void stopTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void link(Timeout timeout) {
+        Timeout head = slots[timeout.slot];
+        timeout.next = head;
+        if (head != null) head.prev = timeout;
+        slots[timeout.slot] = timeout;
+        pending++;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else if (slots[timeout.slot] == timeout) {
+            slots[timeout.slot] = timeout.next;
+        } else {
+            return;
+        }
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+        pending--;
+    }
+
+    /**
+     * A timer scheduled on a wheel.
+     */
+    public static final class Timeout {
+        private final TimerWheel wheel;
+        private final Runnable action;
+        private int slot;
+        private long rounds;
+        private Timeout prev;
+        private Timeout next;
+        private boolean cancelled;
+
+        private Timeout(TimerWheel wheel, Runnable action) {
+            this.wheel = wheel;
+            this.action = action;
+        }
+
+        /**
+         * Cancels the timer. Does nothing if it already ran or was cancelled.
+         */
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            wheel.unlink(this);
+        }
+
+        /**
+         * Checks if the timer has neither run nor been cancelled.
+         *
+         * @return True if the timer is pending
+         */
+        public boolean isPending() {
+            return !cancelled;
+        }
+    }
+}